@@ -0,0 +1,102 @@
+package com.chatwolf.api.config;
+
+import com.chatwolf.api.dto.MessagePageResponse;
+import com.chatwolf.api.dto.MessageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serialization time and payload size of a 100-message history page per encoding
+ * Run with ./gradlew jmh, payload sizes are printed once per trial as [payload] lines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessagePageCodecBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"json", "json-gzip", "smile", "smile-gzip", "cbor", "cbor-gzip"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private MessagePageResponse page;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        gzip = format.endsWith("-gzip");
+        mapper = switch (format.replace("-gzip", "")) {
+            case "smile" -> CompactCodecConfig.compactMapper(Jackson2ObjectMapperBuilder.smile());
+            case "cbor" -> CompactCodecConfig.compactMapper(Jackson2ObjectMapperBuilder.cbor());
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        page = samplePage();
+
+        System.out.printf("%n[payload] format=%s messages=%d bytes=%d%n", format, PAGE_SIZE, encode().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return encode();
+    }
+
+    private byte[] encode() throws IOException {
+        byte[] body = mapper.writeValueAsBytes(page);
+        if (!gzip) {
+            return body;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static MessagePageResponse samplePage() {
+        String conversationId = UUID.randomUUID().toString();
+        String alice = UUID.randomUUID().toString();
+        String bob = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+
+        List<MessageResponse> messages = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            boolean fromAlice = i % 2 == 0;
+            messages.add(MessageResponse.builder()
+                    .id(1_000_000L + i)
+                    .senderId(fromAlice ? alice : bob)
+                    .recipientId(fromAlice ? bob : alice)
+                    .content("Message " + i + ": are we still on for the design review tomorrow afternoon?")
+                    .attachmentUrl(i % 10 == 0 ? "attachments/" + UUID.randomUUID() + ".png" : null)
+                    .seqNo(5_000L - i)
+                    .createdAt(now.minusSeconds(i * 37L))
+                    .build());
+        }
+
+        return MessagePageResponse.builder()
+                .conversationId(conversationId)
+                .messages(messages)
+                .nextCursor(5_000L - PAGE_SIZE + 1)
+                .hasMore(true)
+                .totalCount(5_000L)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.chatwolf.api.config;
+
+import com.chatwolf.api.dto.MessagePageResponse;
+import com.chatwolf.api.dto.MessageResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Compact binary encodings (Smile, CBOR) selected through the Accept header
+ * Messages use short field names and epoch-millis timestamps, JSON stays readable
+ */
+@Configuration
+public class CompactCodecConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_VALUE = "application/cbor";
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(compactMapper(builder.factory(new SmileFactory())));
+    }
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(compactMapper(builder.factory(new CBORFactory())));
+    }
+
+    /**
+     * Apply the compact message layout to a format-specific mapper builder
+     */
+    public static ObjectMapper compactMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .mixIn(MessageResponse.class, CompactMessageResponse.class)
+                .mixIn(MessagePageResponse.class, CompactMessagePageResponse.class)
+                .build();
+    }
+
+    interface CompactMessageResponse {
+
+        @JsonProperty("i")
+        Long getId();
+
+        @JsonProperty("cv")
+        String getConversationId();
+
+        @JsonProperty("s")
+        String getSenderId();
+
+        @JsonProperty("r")
+        String getRecipientId();
+
+        @JsonProperty("c")
+        String getContent();
+
+        @JsonProperty("a")
+        String getAttachmentUrl();
+
+        @JsonProperty("n")
+        Long getSeqNo();
+
+        @JsonProperty("t")
+        Instant getCreatedAt();
+    }
+
+    interface CompactMessagePageResponse {
+
+        @JsonProperty("cv")
+        String getConversationId();
+
+        @JsonProperty("m")
+        List<MessageResponse> getMessages();
+
+        @JsonProperty("nc")
+        Long getNextCursor();
+
+        @JsonProperty("hm")
+        boolean isHasMore();
+
+        @JsonProperty("tc")
+        Long getTotalCount();
+    }
+}
@@ -0,0 +1,79 @@
+package com.chatwolf.api.config;
+
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Feign logger that stays silent for successful calls
+ * Error responses are logged for a sample of calls, with the body truncated
+ */
+@Slf4j
+public class ErrorSamplingFeignLogger extends Logger {
+
+    private final double sampleRate;
+    private final int maxBodyBytes;
+
+    public ErrorSamplingFeignLogger(double sampleRate, int maxBodyBytes) {
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        if (log.isDebugEnabled()) {
+            log.debug(methodTag(configKey) + String.format(format, args));
+        }
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        // Requests are only worth logging once they fail, see logAndRebufferResponse
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel, Response response, long elapsedTime)
+            throws IOException {
+
+        if (response.status() < 400 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return response;
+        }
+
+        byte[] body = response.body() != null ? Util.toByteArray(response.body().asInputStream()) : new byte[0];
+
+        log.warn(
+                "{}{} {} -> {} in {}ms, body: {}",
+                methodTag(configKey),
+                response.request().httpMethod(),
+                response.request().url(),
+                response.status(),
+                elapsedTime,
+                truncate(body));
+
+        // Body stream is consumed, hand the error decoder a buffered copy
+        return response.toBuilder().body(body).build();
+    }
+
+    @Override
+    protected IOException logIOException(String configKey, Level logLevel, IOException ioe, long elapsedTime) {
+        log.warn("{}failed after {}ms: {}", methodTag(configKey), elapsedTime, ioe.toString());
+        return ioe;
+    }
+
+    private String truncate(byte[] body) {
+        if (body.length <= maxBodyBytes) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        // Cut before a UTF-8 continuation byte so the last character is not split
+        int end = maxBodyBytes;
+        while (end > 0 && (body[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new String(body, 0, end, StandardCharsets.UTF_8) + "... (" + body.length + " bytes)";
+    }
+}
@@ -6,12 +6,15 @@ import com.chatwolf.api.exception.InternalServerErrorException;
 import com.chatwolf.api.exception.NotFoundException;
 import com.chatwolf.api.exception.ServiceUnavailableException;
 import com.chatwolf.api.exception.UnauthorizedException;
+import feign.Capability;
 import feign.Logger;
 import feign.RequestInterceptor;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.support.SpringDecoder;
 import org.springframework.cloud.openfeign.support.SpringEncoder;
@@ -24,10 +27,29 @@ public class FeignConfig {
 
     /**
      * Feign logging level configuration
+     * BASIC is enough to route responses through the error sampling logger
      */
     @Bean
     Logger.Level feignLoggerLevel() {
-        return Logger.Level.FULL;
+        return Logger.Level.BASIC;
+    }
+
+    /**
+     * Logs a sampled, truncated body for error responses only
+     */
+    @Bean
+    Logger feignLogger(
+            @Value("${feign.instrumentation.error-log-sample-rate:0.1}") double sampleRate,
+            @Value("${feign.instrumentation.error-log-max-body-bytes:1024}") int maxBodyBytes) {
+        return new ErrorSamplingFeignLogger(sampleRate, maxBodyBytes);
+    }
+
+    /**
+     * Per-client latency timers and histograms
+     */
+    @Bean
+    Capability feignMetricsCapability(MeterRegistry meterRegistry) {
+        return new FeignMetricsCapability(meterRegistry);
     }
 
     /**
@@ -0,0 +1,65 @@
+package com.chatwolf.api.config;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps every Feign client with a latency timer tagged by client, method, status and outcome
+ * Enriches the load-balancing client, so the time includes instance selection on top of the round trip.
+ * Named apart from OpenFeign's own Micrometer meters (http.client.requests, feign.*), which are disabled.
+ */
+public class FeignMetricsCapability implements Capability {
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    public FeignMetricsCapability(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            long start = System.nanoTime();
+            try {
+                Response response = client.execute(request, options);
+                record(
+                        request,
+                        String.valueOf(response.status()),
+                        Outcome.forStatus(response.status()).name(),
+                        start);
+                return response;
+            } catch (IOException | RuntimeException ex) {
+                record(request, "IO_ERROR", UNKNOWN, start);
+                throw ex;
+            }
+        };
+    }
+
+    private void record(Request request, String status, String outcome, long start) {
+        Timer.builder("api.feign.requests")
+                .description("Outbound Feign request latency")
+                .tag("client", clientName(request))
+                .tag("method", request.httpMethod().name())
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String clientName(Request request) {
+        if (request.requestTemplate() == null || request.requestTemplate().feignTarget() == null) {
+            return UNKNOWN;
+        }
+        return request.requestTemplate().feignTarget().name();
+    }
+}
@@ -0,0 +1,6 @@
+package com.chatwolf.api.constant;
+
+public class Constants {
+
+    public static final String KAFKA_CONVERSATION_MEMBER_EVENTS_TOPIC = "conversation-member-events";
+}
@@ -1,24 +1,114 @@
 package com.chatwolf.api.controller;
 
+import com.chatwolf.api.config.CompactCodecConfig;
 import com.chatwolf.api.dto.ConversationSummary;
+import com.chatwolf.api.dto.MessagePageResponse;
 import com.chatwolf.api.service.MessageService;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class MessageController {
 
+    // Encodings of a message page, JSON first so it wins a wildcard Accept
+    private static final List<MediaType> PAGE_MEDIA_TYPES = List.of(
+            MediaType.APPLICATION_JSON,
+            MediaType.parseMediaType(CompactCodecConfig.SMILE_VALUE),
+            MediaType.parseMediaType(CompactCodecConfig.CBOR_VALUE));
+
     private final MessageService messageService;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     @GetMapping("/messages")
     public ResponseEntity<List<ConversationSummary>> getMessages(@PathVariable String userId) {
         return ResponseEntity.ok(messageService.getUserConversations(userId));
     }
+
+    /**
+     * Get a page of conversation history, newest first
+     * GET /api/conversations/{conversationId}/messages?cursor={seqNo}
+     * Accept: application/json (default), application/x-jackson-smile or application/cbor
+     *
+     * Responses carry a strong ETag, If-None-Match is answered with 304 by Spring MVC.
+     * Pages entirely below the head are marked immutable, the first page must be revalidated.
+     * Only members of the conversation may read it, others get 403.
+     */
+    @GetMapping(
+            path = "/conversations/{conversationId}/messages",
+            produces = {
+                MediaType.APPLICATION_JSON_VALUE,
+                CompactCodecConfig.SMILE_VALUE,
+                CompactCodecConfig.CBOR_VALUE
+            })
+    public ResponseEntity<MessagePageResponse> getConversationMessages(
+            @PathVariable String conversationId,
+            @RequestParam(required = false) Long cursor,
+            @AuthenticationPrincipal Jwt jwt,
+            NativeWebRequest webRequest)
+            throws HttpMediaTypeNotAcceptableException {
+
+        MediaType mediaType = negotiate(webRequest);
+        MessagePageResponse page = messageService.getConversationMessages(conversationId, cursor, jwt.getSubject());
+
+        CacheControl cacheControl = page.isImmutable()
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+
+        // The preset Content-Type makes Spring MVC write exactly the encoding the ETag was computed for
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(pageETag(conversationId, cursor, page.getLastSeqNo(), mediaType))
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(page);
+    }
+
+    /**
+     * Strong ETag from (conversationId, cursor, last seqNo), one per encoding
+     */
+    private String pageETag(String conversationId, Long cursor, Long lastSeqNo, MediaType mediaType) {
+        String key = conversationId + ":" + cursor + ":" + lastSeqNo + ":" + mediaType.getSubtype();
+        return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Pick the page encoding the way Spring MVC selects a response media type, most specific acceptable type first
+     */
+    private MediaType negotiate(NativeWebRequest webRequest) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType requested : contentNegotiationManager.resolveMediaTypes(webRequest)) {
+            for (MediaType producible : PAGE_MEDIA_TYPES) {
+                if (requested.isCompatibleWith(producible)) {
+                    compatible.add(producible.copyQualityValue(requested));
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+
+        if (compatible.isEmpty()) {
+            throw new HttpMediaTypeNotAcceptableException(PAGE_MEDIA_TYPES);
+        }
+        return compatible.get(0).removeQualityValue();
+    }
 }
@@ -0,0 +1,27 @@
+package com.chatwolf.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ConversationMemberEvent {
+
+    public static final String TYPE_ADDED = "ADDED";
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("conversationId")
+    private String conversationId;
+
+    @JsonProperty("userId")
+    private String userId;
+
+    @JsonProperty("occurredAt")
+    private Instant occurredAt;
+}
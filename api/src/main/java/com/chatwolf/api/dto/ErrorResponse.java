@@ -0,0 +1,19 @@
+package com.chatwolf.api.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ErrorResponse {
+    private String errorCode;
+    private String message;
+    private Instant timestamp;
+
+    public ErrorResponse(String errorCode, String message) {
+        this.errorCode = errorCode;
+        this.message = message;
+        this.timestamp = Instant.now();
+    }
+}
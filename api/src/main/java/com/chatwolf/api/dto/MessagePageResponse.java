@@ -1,5 +1,6 @@
 package com.chatwolf.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 import lombok.Builder;
 import lombok.Getter;
@@ -7,8 +8,15 @@ import lombok.Getter;
 @Getter
 @Builder
 public class MessagePageResponse {
+    private String conversationId; // Shared by every message in the page
     private List<MessageResponse> messages;
     private Long nextCursor; // Sequence number for next page
     private boolean hasMore; // True if more messages available
-    private long totalCount; // Total messages in conversation
+    private Long totalCount; // Total messages in conversation, first page only
+
+    @JsonIgnore
+    private Long lastSeqNo; // Highest seqNo in the page, part of the ETag
+
+    @JsonIgnore
+    private boolean immutable; // Page is fully below the head and can never change
 }
@@ -0,0 +1,49 @@
+package com.chatwolf.api.listener;
+
+import com.chatwolf.api.constant.Constants;
+import com.chatwolf.api.dto.ConversationMemberEvent;
+import com.chatwolf.api.service.MembershipService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the membership cache of this instance in sync with the consumer
+ * Each instance uses its own consumer group, so every instance sees every event
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConversationMemberListener {
+
+    private final MembershipService membershipService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = Constants.KAFKA_CONVERSATION_MEMBER_EVENTS_TOPIC,
+            groupId = "${membership.events.group-id-prefix:api-membership}-${random.uuid}")
+    public void onMemberEvent(@Payload String payload) {
+        try {
+            ConversationMemberEvent event = objectMapper.readValue(payload, ConversationMemberEvent.class);
+
+            if (ConversationMemberEvent.TYPE_ADDED.equals(event.getType())) {
+                membershipService.onMemberAdded(event.getConversationId(), event.getUserId());
+            } else {
+                membershipService.invalidate(event.getConversationId(), event.getUserId());
+            }
+
+            log.debug(
+                    "Applied member event - type={}, conversationId={}, userId={}",
+                    event.getType(),
+                    event.getConversationId(),
+                    event.getUserId());
+
+        } catch (Exception e) {
+            // Cached negatives still expire on their own, skip the event
+            log.error("Failed to apply member event: {}", e.getMessage());
+        }
+    }
+}
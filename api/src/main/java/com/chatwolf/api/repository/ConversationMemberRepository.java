@@ -0,0 +1,13 @@
+package com.chatwolf.api.repository;
+
+import com.chatwolf.api.entity.ConversationMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ConversationMemberRepository extends JpaRepository<ConversationMember, Long> {
+
+    /**
+     * Check if user belongs to conversation
+     * Uses: uk_conversation_member
+     */
+    boolean existsByConversationIdAndUserId(String conversationId, String userId);
+}
@@ -1,12 +1,19 @@
 package com.chatwolf.api.repository;
 
+import java.util.Collection;
+import java.util.Map;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 @FeignClient(name = "storage-service", path = "/storage")
 public interface StorageClient {
 
     @GetMapping("/presign/{objectId}")
-    String getPresignedUrl(@PathVariable String objectId);
+    Map<String, String> getPresignedUrl(@PathVariable String objectId);
+
+    @PostMapping("/presign/batch")
+    Map<String, String> getPresignedUrls(@RequestBody Collection<String> objectIds);
 }
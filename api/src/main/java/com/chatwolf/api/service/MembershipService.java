@@ -0,0 +1,78 @@
+package com.chatwolf.api.service;
+
+import com.chatwolf.api.exception.ForbiddenException;
+import com.chatwolf.api.repository.ConversationMemberRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Conversation ACL backed by t_conversation_member
+ * Hits are answered from a bounded in-memory cache, misses cost one indexed lookup.
+ * Non-members are cached briefly, membership events from the consumer overwrite them right away.
+ */
+@Slf4j
+@Service
+public class MembershipService {
+
+    private final LoadingCache<MembershipKey, Boolean> membershipCache;
+
+    private record MembershipKey(String conversationId, String userId) {}
+
+    public MembershipService(
+            ConversationMemberRepository memberRepository,
+            MeterRegistry meterRegistry,
+            @Value("${membership.cache.max-size:100000}") long maxSize,
+            @Value("${membership.cache.member-ttl-minutes:30}") long memberTtlMinutes,
+            @Value("${membership.cache.non-member-ttl-seconds:60}") long nonMemberTtlSeconds) {
+
+        Duration memberTtl = Duration.ofMinutes(memberTtlMinutes);
+        Duration nonMemberTtl = Duration.ofSeconds(nonMemberTtlSeconds);
+
+        this.membershipCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.writing(
+                        (MembershipKey key, Boolean member) -> Boolean.TRUE.equals(member) ? memberTtl : nonMemberTtl))
+                .recordStats()
+                .build(key -> memberRepository.existsByConversationIdAndUserId(key.conversationId(), key.userId()));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, membershipCache, "conversation_membership");
+    }
+
+    public boolean isMember(String conversationId, String userId) {
+        if (conversationId == null || userId == null) {
+            return false;
+        }
+        return Boolean.TRUE.equals(membershipCache.get(new MembershipKey(conversationId, userId)));
+    }
+
+    /**
+     * Throw if the caller does not belong to the conversation
+     */
+    public void requireMember(String conversationId, String userId) {
+        if (!isMember(conversationId, userId)) {
+            log.debug("Access denied - userId={} is not a member of conversationId={}", userId, conversationId);
+            throw new ForbiddenException("Not a member of conversation: " + conversationId);
+        }
+    }
+
+    /**
+     * A member was added, replaces a cached negative answer
+     */
+    public void onMemberAdded(String conversationId, String userId) {
+        membershipCache.put(new MembershipKey(conversationId, userId), Boolean.TRUE);
+    }
+
+    /**
+     * Membership changed in an unknown way, reload on next access
+     */
+    public void invalidate(String conversationId, String userId) {
+        membershipCache.invalidate(new MembershipKey(conversationId, userId));
+    }
+}
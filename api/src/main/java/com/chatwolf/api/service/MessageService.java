@@ -20,13 +20,16 @@ import org.springframework.transaction.annotation.Transactional;
 public class MessageService {
 
     private final MessageRepository messageRepository;
+    private final MembershipService membershipService;
     private static final int PAGE_SIZE = 100;
 
     /**
      * Get conversation messages with infinite scroll
      */
     @Transactional(readOnly = true)
-    public MessagePageResponse getConversationMessages(String conversationId, Long cursor) {
+    public MessagePageResponse getConversationMessages(String conversationId, Long cursor, String userId) {
+
+        membershipService.requireMember(conversationId, userId);
 
         List<Message> messages;
 
@@ -47,18 +50,43 @@ public class MessageService {
             nextCursor = messages.get(messages.size() - 1).getSeqNo();
         }
 
-        // Convert to DTOs
+        // Convert to DTOs, conversationId is sent once on the page instead of per message
         List<MessageResponse> messageResponses =
-                messages.stream().map(this::toMessageResponse).collect(Collectors.toList());
+                messages.stream().map(this::toPageMessageResponse).collect(Collectors.toList());
+
+        // Older pages never change, so only the first page pays for the count
+        Long totalCount = cursor == null ? messageRepository.countMessagesByConversation(conversationId) : null;
 
         return MessagePageResponse.builder()
+                .conversationId(conversationId)
                 .messages(messageResponses)
                 .nextCursor(nextCursor)
                 .hasMore(hasMore)
-                .totalCount(messageRepository.countMessagesByConversation(conversationId))
+                .totalCount(totalCount)
+                .lastSeqNo(messages.isEmpty() ? null : messages.get(0).getSeqNo())
+                .immutable(isImmutablePage(messages, cursor, hasMore))
                 .build();
     }
 
+    /**
+     * A cursor page is immutable once it holds every seqNo directly below the cursor
+     * seqNo only grows and messages are never edited, so nothing can be inserted into it later
+     */
+    private boolean isImmutablePage(List<Message> messages, Long cursor, boolean hasMore) {
+        if (cursor == null) {
+            return false;
+        }
+        if (messages.isEmpty()) {
+            return cursor <= 1;
+        }
+
+        long first = messages.get(0).getSeqNo();
+        long last = messages.get(messages.size() - 1).getSeqNo();
+        boolean contiguous = first == cursor - 1 && last == cursor - messages.size();
+
+        return contiguous && (hasMore || last == 1);
+    }
+
     /**
      * Get user's conversation list
      */
@@ -79,7 +107,9 @@ public class MessageService {
      * Search messages in conversation
      */
     @Transactional(readOnly = true)
-    public List<MessageResponse> searchMessages(String conversationId, String searchTerm) {
+    public List<MessageResponse> searchMessages(String conversationId, String searchTerm, String userId) {
+
+        membershipService.requireMember(conversationId, userId);
 
         List<Message> messages =
                 messageRepository.searchMessagesInConversation(conversationId, searchTerm, PageRequest.of(0, 50));
@@ -91,7 +121,10 @@ public class MessageService {
      * Get messages by date range (for exports, analytics)
      */
     @Transactional(readOnly = true)
-    public List<MessageResponse> getMessagesByDateRange(String conversationId, Instant startDate, Instant endDate) {
+    public List<MessageResponse> getMessagesByDateRange(
+            String conversationId, Instant startDate, Instant endDate, String userId) {
+
+        membershipService.requireMember(conversationId, userId);
 
         List<Message> messages = messageRepository.findMessagesByDateRange(conversationId, startDate, endDate);
 
@@ -99,15 +132,23 @@ public class MessageService {
     }
 
     private MessageResponse toMessageResponse(Message message) {
+        return toMessageResponseBuilder(message)
+                .conversationId(message.getConversationId())
+                .build();
+    }
+
+    private MessageResponse toPageMessageResponse(Message message) {
+        return toMessageResponseBuilder(message).build();
+    }
+
+    private MessageResponse.MessageResponseBuilder toMessageResponseBuilder(Message message) {
         return MessageResponse.builder()
                 .id(message.getId())
-                .conversationId(message.getConversationId())
                 .senderId(message.getSenderId())
                 .recipientId(message.getRecipientId())
                 .content(message.getContent())
                 .attachmentUrl(message.getAttachmentUrl())
                 .seqNo(message.getSeqNo())
-                .createdAt(message.getCreatedAt())
-                .build();
+                .createdAt(message.getCreatedAt());
     }
 }
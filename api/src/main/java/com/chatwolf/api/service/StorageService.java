@@ -4,10 +4,16 @@ import com.chatwolf.api.exception.StorageServiceUnavailableException;
 import com.chatwolf.api.repository.StorageClient;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+/**
+ * Presigned URLs are cached by the storage service, which checks access and evicts on delete
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -19,7 +25,17 @@ public class StorageService {
     @CircuitBreaker(name = "storageService", fallbackMethod = "circuitBreakerFallback")
     public String getPresignedUrl(String objectId) {
         log.debug("Fetching presigned URL for objectId: {}", objectId);
-        return storageClient.getPresignedUrl(objectId);
+        return storageClient.getPresignedUrl(objectId).get("url");
+    }
+
+    /**
+     * Presign all attachments of a page in a single storage call
+     */
+    @Retry(name = "storageService", fallbackMethod = "batchRetryFallback")
+    @CircuitBreaker(name = "storageService", fallbackMethod = "batchCircuitBreakerFallback")
+    public Map<String, String> getPresignedUrls(Collection<String> objectIds) {
+        log.debug("Fetching {} presigned URLs in one batch", objectIds.size());
+        return storageClient.getPresignedUrls(objectIds);
     }
 
     /**
@@ -43,6 +59,21 @@ public class StorageService {
         return generateFallbackUrl(objectId);
     }
 
+    public Map<String, String> batchRetryFallback(Collection<String> objectIds, Exception ex) throws Exception {
+        log.warn("Retry exhausted for batch of {} objectIds. Error: {}", objectIds.size(), ex.getMessage());
+        throw new StorageServiceUnavailableException(ex.getMessage(), ex);
+    }
+
+    public Map<String, String> batchCircuitBreakerFallback(Collection<String> objectIds, Throwable t) {
+        log.error(
+                "Circuit breaker activated for storage service. Batch of {} objectIds. Error: {}",
+                objectIds.size(),
+                t.getMessage());
+        return objectIds.stream()
+                .distinct()
+                .collect(Collectors.toMap(objectId -> objectId, this::generateFallbackUrl));
+    }
+
     /**
      * Generate a fallback URL when storage service is unavailable
      */
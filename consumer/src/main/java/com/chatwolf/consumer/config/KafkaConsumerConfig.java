@@ -134,6 +134,14 @@ public class KafkaConsumerConfig {
                 .build();
     }
 
+    @Bean
+    NewTopic conversationMemberEventsTopic() {
+        return TopicBuilder.name(Constants.KAFKA_CONVERSATION_MEMBER_EVENTS_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
     NewTopic chatMessagesDeadLetterTopic() {
         return TopicBuilder.name("chat-messages-dead-letter")
@@ -3,4 +3,6 @@ package com.chatwolf.consumer.constant;
 public class Constants {
 
     public static final String KAFKA_CHAT_MESSAGES_TOPIC = "chat-messages";
+
+    public static final String KAFKA_CONVERSATION_MEMBER_EVENTS_TOPIC = "conversation-member-events";
 }
@@ -0,0 +1,45 @@
+package com.chatwolf.consumer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(
+        name = "t_conversation_member",
+        uniqueConstraints =
+                @UniqueConstraint(
+                        name = "uk_conversation_member",
+                        columnNames = {"conversation_id", "user_id"}),
+        indexes = {@Index(name = "idx_member_user", columnList = "user_id")})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false)
+    private String conversationId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "joined_at", nullable = false)
+    private Instant joinedAt;
+}
@@ -0,0 +1,51 @@
+package com.chatwolf.consumer.repository;
+
+import com.chatwolf.consumer.entity.ConversationMember;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ConversationMemberRepository extends JpaRepository<ConversationMember, Long> {
+
+    /**
+     * Add a member unless already present
+     * Returns 1 when a row was inserted, 0 when the member already existed
+     * Uses: uk_conversation_member
+     */
+    @Modifying
+    @Query(
+            value =
+                    """
+        INSERT INTO t_conversation_member (conversation_id, user_id, joined_at)
+        VALUES (:conversationId, :userId, :joinedAt)
+        ON CONFLICT (conversation_id, user_id) DO NOTHING
+        """,
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("conversationId") String conversationId,
+            @Param("userId") String userId,
+            @Param("joinedAt") Instant joinedAt);
+
+    /**
+     * Derive memberships from already persisted messages
+     * Idempotent, only meant to be run once after the table is introduced
+     */
+    @Modifying
+    @Query(
+            value =
+                    """
+        INSERT INTO t_conversation_member (conversation_id, user_id, joined_at)
+        SELECT conversation_id, user_id, MIN(created_at)
+        FROM (
+            SELECT conversation_id, sender_id AS user_id, created_at FROM t_message
+            UNION ALL
+            SELECT conversation_id, recipient_id AS user_id, created_at FROM t_message WHERE recipient_id IS NOT NULL
+        ) participants
+        GROUP BY conversation_id, user_id
+        ON CONFLICT (conversation_id, user_id) DO NOTHING
+        """,
+            nativeQuery = true)
+    int backfillFromMessages();
+}
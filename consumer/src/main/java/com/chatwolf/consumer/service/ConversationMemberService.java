@@ -0,0 +1,119 @@
+package com.chatwolf.consumer.service;
+
+import com.chatwolf.consumer.constant.Constants;
+import com.chatwolf.consumer.dto.ConversationMemberEvent;
+import com.chatwolf.consumer.repository.ConversationMemberRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Maintains t_conversation_member from the message stream
+ * New memberships are announced on Kafka after commit so API instances can refresh their ACL caches
+ */
+@Slf4j
+@Service
+public class ConversationMemberService {
+
+    private final ConversationMemberRepository memberRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${membership.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    // Memberships known to be persisted, skips the insert for every further message of a conversation
+    private final Cache<String, Boolean> knownMembers;
+
+    public ConversationMemberService(
+            ConversationMemberRepository memberRepository,
+            ApplicationEventPublisher eventPublisher,
+            KafkaTemplate<String, String> kafkaTemplate,
+            ObjectMapper objectMapper,
+            @Value("${membership.known-members-cache-size:100000}") long knownMembersCacheSize) {
+
+        this.memberRepository = memberRepository;
+        this.eventPublisher = eventPublisher;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.knownMembers = Caffeine.newBuilder().maximumSize(knownMembersCacheSize).build();
+    }
+
+    /**
+     * Record the participants of a message as conversation members
+     * Must run inside the transaction that persists the message
+     */
+    @Transactional
+    public void ensureMembers(String conversationId, Instant joinedAt, String... userIds) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            if (userId != null && !userId.isBlank()) {
+                candidates.add(userId);
+            }
+        }
+
+        for (String userId : candidates) {
+            String memberKey = conversationId + ":" + userId;
+            if (knownMembers.getIfPresent(memberKey) != null) {
+                continue;
+            }
+
+            if (memberRepository.insertIfAbsent(conversationId, userId, joinedAt) == 1) {
+                log.debug("New conversation member - conversationId={}, userId={}", conversationId, userId);
+                eventPublisher.publishEvent(new ConversationMemberEvent(
+                        ConversationMemberEvent.TYPE_ADDED, conversationId, userId, Instant.now()));
+            } else {
+                // Row is already committed, a fresh insert is only remembered after commit
+                knownMembers.put(memberKey, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Publish membership changes only once they are visible to readers
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void publishMemberEvent(ConversationMemberEvent event) {
+        knownMembers.put(event.getConversationId() + ":" + event.getUserId(), Boolean.TRUE);
+
+        try {
+            kafkaTemplate.send(
+                    Constants.KAFKA_CONVERSATION_MEMBER_EVENTS_TOPIC,
+                    event.getConversationId(),
+                    objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // API caches fall back to their negative TTL, so a lost event only delays access
+            log.error(
+                    "Failed to publish member event - conversationId={}, userId={}",
+                    event.getConversationId(),
+                    event.getUserId(),
+                    e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillMembers() {
+        if (!backfillOnStartup) {
+            return;
+        }
+
+        log.info("Backfilling conversation members from existing messages");
+        int inserted = memberRepository.backfillFromMessages();
+        log.info("Conversation member backfill completed. Inserted {} members", inserted);
+    }
+}
@@ -19,9 +19,11 @@ public class MessageService {
     private EntityManager entityManager;
 
     private final MessageRepository messageRepository;
+    private final ConversationMemberService conversationMemberService;
 
-    public MessageService(MessageRepository messageRepository) {
+    public MessageService(MessageRepository messageRepository, ConversationMemberService conversationMemberService) {
         this.messageRepository = messageRepository;
+        this.conversationMemberService = conversationMemberService;
     }
 
     @Transactional
@@ -57,7 +59,10 @@ public class MessageService {
                 .createdAt(messageEvent.getSentAt() == null ? Instant.now() : messageEvent.getSentAt())
                 .build();
 
-        return messageRepository.save(msg);
+        Message saved = messageRepository.save(msg);
+        conversationMemberService.ensureMembers(
+                saved.getConversationId(), saved.getCreatedAt(), saved.getSenderId(), saved.getRecipientId());
+        return saved;
     }
 
     @Transactional
@@ -0,0 +1,59 @@
+package com.chatwolf.presence.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of turning one pub/sub or stream payload, as published by the socket service, into a PresenceEvent
+ * string: new String(body) then ObjectMapper.readValue, what the pub/sub listener does
+ * bytes: ObjectMapper.readValue straight from the message body
+ * reader: a pre-built ObjectReader for PresenceEvent over the message body
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PresenceEventDeserializationBenchmark {
+
+    private static final String PAYLOAD = "{\"eventId\":\"0b7c5c8e-6a0f-4f47-9a63-3c1f3f0f2d11\","
+            + "\"userId\":\"1048576\","
+            + "\"status\":\"ONLINE\",\"timestamp\":\"2026-10-19T08:15:30.123456789Z\","
+            + "\"deviceId\":\"web-7f3a\",\"connectionId\":\"c5d2a9e0-11b4-4c7e-8d3b-5b0e2f9a7c41\"}";
+
+    private ObjectMapper objectMapper;
+    private ObjectReader objectReader;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Same modules as the Spring Boot managed ObjectMapper (java.time among them)
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        objectReader = objectMapper.readerFor(PresenceEvent.class);
+        body = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PresenceEvent string() throws Exception {
+        return objectMapper.readValue(new String(body), PresenceEvent.class);
+    }
+
+    @Benchmark
+    public PresenceEvent bytes() throws Exception {
+        return objectMapper.readValue(body, PresenceEvent.class);
+    }
+
+    @Benchmark
+    public PresenceEvent reader() throws Exception {
+        return objectReader.readValue(body);
+    }
+}
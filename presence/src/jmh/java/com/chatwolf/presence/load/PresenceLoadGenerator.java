@@ -0,0 +1,314 @@
+package com.chatwolf.presence.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.XAddArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load harness for a running presence service: publishes presence events to Redis at a fixed rate while N SSE
+ * subscribers stay connected, then reports publish-to-SSE latency percentiles
+ *
+ * Every event flips its user between ONLINE and AWAY so that it changes the aggregated status and reaches the
+ * subscribers watching that user. The publish time is carried in the eventId, publisher and subscribers share
+ * this JVM so System.nanoTime is comparable.
+ *
+ * Run with ./gradlew loadTest -PloadArgs="rate=2000 subscribers=1000 duration=60", options:
+ *   redis=redis://:strongredispassword@localhost:6379  target Redis
+ *   mode=pubsub|stream                                 publish to the channel or XADD to the stream
+ *   channel=presence:channel  stream=presence:stream   ingestion keys, as configured in the service
+ *   url=http://localhost:7400                          presence service base url
+ *   users=10000  subscribers=1000  contacts=50         user population and SSE subscribers watching it
+ *   rate=2000  duration=60  warmup=10                  events per second, measured and warmup seconds
+ */
+public class PresenceLoadGenerator {
+
+    private static final String EVENT_ID_PREFIX = "lt-";
+    private static final long TICK_MILLIS = 10;
+
+    private final Map<String, String> options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicBoolean recording = new AtomicBoolean(false);
+    private final AtomicLong published = new AtomicLong();
+    private final LongAdder publishErrors = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder subscriberErrors = new LongAdder();
+    private final LatencyRecorder latencies = new LatencyRecorder(1 << 24);
+
+    PresenceLoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                options.put(arg.substring(0, separator), arg.substring(separator + 1));
+            }
+        }
+        new PresenceLoadGenerator(options).run();
+    }
+
+    void run() throws Exception {
+        int users = intOption("users", 10_000);
+        int subscribers = intOption("subscribers", 1_000);
+        int contacts = Math.min(users, intOption("contacts", 50));
+        int rate = intOption("rate", 2_000);
+        int duration = intOption("duration", 60);
+        int warmup = intOption("warmup", 10);
+
+        List<CompletableFuture<?>> streams = openSubscribers(users, subscribers, contacts);
+        System.out.printf("[load] %d SSE subscribers watching %d contacts each%n", subscribers, contacts);
+
+        RedisClient redisClient = RedisClient.create(option("redis", "redis://:strongredispassword@localhost:6379"));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (StatefulRedisConnection<String, String> connection = redisClient.connect()) {
+            RedisAsyncCommands<String, String> redis = connection.async();
+            Publisher publisher = new Publisher(redis, users, Math.max(1, rate * TICK_MILLIS / 1000d));
+            scheduler.scheduleAtFixedRate(publisher::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+            System.out.printf("[load] warming up for %ds at %d events/s%n", warmup, rate);
+            TimeUnit.SECONDS.sleep(warmup);
+
+            long publishedBefore = published.get();
+            recording.set(true);
+            long start = System.nanoTime();
+            System.out.printf("[load] measuring for %ds%n", duration);
+            TimeUnit.SECONDS.sleep(duration);
+            recording.set(false);
+            long elapsed = System.nanoTime() - start;
+
+            scheduler.shutdown();
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            report(published.get() - publishedBefore, elapsed);
+        } finally {
+            scheduler.shutdownNow();
+            streams.forEach(stream -> stream.cancel(true));
+            readers.shutdownNow();
+            redisClient.shutdown();
+        }
+    }
+
+    /**
+     * Open the SSE streams, each watching a random set of contacts
+     */
+    private List<CompletableFuture<?>> openSubscribers(int users, int subscribers, int contacts) {
+        String url = option("url", "http://localhost:7400");
+        SplittableRandom random = new SplittableRandom(42);
+        List<CompletableFuture<?>> streams = new ArrayList<>(subscribers);
+
+        for (int i = 0; i < subscribers; i++) {
+            Set<String> watched = new HashSet<>();
+            while (watched.size() < contacts) {
+                watched.add(userId(random.nextInt(users)));
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create(url + "/api/presence/stream?userIds=" + String.join(",", watched)))
+                    .header("Accept", "text/event-stream")
+                    .GET()
+                    .build();
+
+            streams.add(httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                    // Each stream blocks a virtual thread reading lines, never the client's selector thread
+                    .thenAcceptAsync(response -> response.body().forEach(this::onLine), readers)
+                    .exceptionally(ex -> {
+                        subscriberErrors.increment();
+                        return null;
+                    }));
+        }
+        return streams;
+    }
+
+    private void onLine(String line) {
+        if (!line.startsWith("data:")) {
+            return;
+        }
+        long received = System.nanoTime();
+        try {
+            JsonNode event = objectMapper.readTree(line.substring(5));
+            String eventId = event.path("eventId").asText();
+            if (!eventId.startsWith(EVENT_ID_PREFIX)) {
+                return;
+            }
+
+            long sent = Long.parseLong(eventId.substring(EVENT_ID_PREFIX.length(), eventId.lastIndexOf('-')));
+            if (recording.get()) {
+                delivered.increment();
+                latencies.record(received - sent);
+            }
+        } catch (Exception ex) {
+            subscriberErrors.increment();
+        }
+    }
+
+    private void report(long sent, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long[] sorted = latencies.sorted();
+
+        System.out.printf(
+                "%n[load] published %d events in %.1fs (%.0f/s), %d publish errors%n",
+                sent, seconds, sent / seconds, publishErrors.sum());
+        System.out.printf(
+                "[load] delivered %d SSE events (%.0f/s), %d subscriber errors%n",
+                delivered.sum(), delivered.sum() / seconds, subscriberErrors.sum());
+
+        if (sorted.length == 0) {
+            System.out.println("[load] no deliveries recorded");
+            return;
+        }
+        System.out.printf(
+                "[load] publish-to-SSE latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                percentile(sorted, 50),
+                percentile(sorted, 90),
+                percentile(sorted, 99),
+                percentile(sorted, 99.9),
+                sorted[sorted.length - 1] / 1e6);
+        if (latencies.overflowed()) {
+            System.out.println("[load] latency buffer full, later deliveries were not recorded");
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static String userId(int user) {
+        return String.valueOf(1_000_000 + user);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Publishes a fixed number of events per tick, carrying a fractional remainder so low rates are exact
+     */
+    private class Publisher {
+
+        private final RedisAsyncCommands<String, String> redis;
+        private final boolean streamMode;
+        private final String channel;
+        private final String stream;
+        private final int users;
+        private final double perTick;
+        private final boolean[] away;
+        private final SplittableRandom random = new SplittableRandom();
+        private double carry;
+
+        Publisher(RedisAsyncCommands<String, String> redis, int users, double perTick) {
+            this.redis = redis;
+            this.streamMode = "stream".equals(option("mode", "pubsub"));
+            this.channel = option("channel", "presence:channel");
+            this.stream = option("stream", "presence:stream");
+            this.users = users;
+            this.perTick = perTick;
+            this.away = new boolean[users];
+        }
+
+        void tick() {
+            carry += perTick;
+            int count = (int) carry;
+            carry -= count;
+
+            for (int i = 0; i < count; i++) {
+                publish(random.nextInt(users));
+            }
+        }
+
+        private void publish(int user) {
+            away[user] = !away[user];
+            long sequence = published.incrementAndGet();
+
+            Map<String, Object> event = new HashMap<>();
+            event.put("eventId", EVENT_ID_PREFIX + System.nanoTime() + "-" + sequence);
+            event.put("userId", userId(user));
+            event.put("status", away[user] ? "AWAY" : "ONLINE");
+            event.put("timestamp", Instant.now().toString());
+            event.put("connectionId", "lt-connection-" + user);
+
+            try {
+                String payload = objectMapper.writeValueAsString(event);
+                CompletableFuture<?> sent;
+                if (streamMode) {
+                    XAddArgs trim = XAddArgs.Builder.maxlen(100_000).approximateTrimming();
+                    sent = redis.xadd(stream, trim, Map.of("event", payload)).toCompletableFuture();
+                } else {
+                    sent = redis.publish(channel, payload).toCompletableFuture();
+                }
+                sent.exceptionally(ex -> {
+                    publishErrors.increment();
+                    return null;
+                });
+            } catch (Exception ex) {
+                publishErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * Fixed-size lock-free buffer of latency samples in nanoseconds, sorted once for the report
+     */
+    private static class LatencyRecorder {
+
+        private final long[] samples;
+        private final AtomicLong size = new AtomicLong();
+
+        LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void record(long nanos) {
+            long index = size.getAndIncrement();
+            if (index < samples.length) {
+                samples[(int) index] = nanos;
+            }
+        }
+
+        boolean overflowed() {
+            return size.get() > samples.length;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, (int) Math.min(size.get(), samples.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
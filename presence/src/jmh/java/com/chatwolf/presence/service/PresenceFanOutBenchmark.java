@@ -0,0 +1,113 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.constant.PresenceStatus;
+import com.chatwolf.presence.dto.PresenceEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Cost of publishing one presence event with 10k SSE subscribers watching 50 contacts each
+ * firehose: shared multicast sink, every subscriber filters client side (previous behaviour)
+ * filtered: PresenceSubscriptionRegistry, only interested subscribers are touched
+ * Run with ./gradlew jmh, deliveries per event are printed once per trial as [fanout] lines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PresenceFanOutBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int CONTACTS_PER_SUBSCRIBER = 50;
+
+    @Param({"10000"})
+    public int subscribers;
+
+    @Param({"firehose", "filtered"})
+    public String routing;
+
+    private final LongAdder delivered = new LongAdder();
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    private Sinks.Many<PresenceEvent> firehose;
+    private PresenceSubscriptionRegistry registry;
+    private PresenceEvent[] events;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+
+        firehose = Sinks.many().multicast().directBestEffort();
+        registry = new PresenceSubscriptionRegistry(new SimpleMeterRegistry(), 256, 30, 1000);
+
+        for (int i = 0; i < subscribers; i++) {
+            Set<String> contacts = new HashSet<>();
+            while (contacts.size() < CONTACTS_PER_SUBSCRIBER) {
+                contacts.add("user-" + random.nextInt(USERS));
+            }
+
+            if ("firehose".equals(routing)) {
+                subscriptions.add(firehose.asFlux()
+                        .filter(event -> contacts.contains(event.getUserId()))
+                        .subscribe(event -> delivered.increment()));
+            } else {
+                subscriptions.add(registry.subscribe(contacts).subscribe(event -> delivered.increment()));
+            }
+        }
+
+        events = new PresenceEvent[1024];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new PresenceEvent(
+                    "event-" + i,
+                    "user-" + random.nextInt(USERS),
+                    PresenceStatus.ONLINE,
+                    Instant.now(),
+                    null,
+                    "connection-" + i);
+        }
+
+        for (PresenceEvent event : events) {
+            route(event);
+        }
+        System.out.printf(
+                "%n[fanout] routing=%s subscribers=%d deliveries/event=%.2f%n",
+                routing, subscribers, delivered.sum() / (double) events.length);
+    }
+
+    @Benchmark
+    public void publish() {
+        route(events[next++ & (events.length - 1)]);
+    }
+
+    private void route(PresenceEvent event) {
+        if ("firehose".equals(routing)) {
+            firehose.tryEmitNext(event);
+        } else {
+            registry.publish(event);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+    }
+}
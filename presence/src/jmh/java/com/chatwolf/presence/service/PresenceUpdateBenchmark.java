@@ -0,0 +1,115 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.PresenceApplication;
+import com.chatwolf.presence.constant.PresenceStatus;
+import com.chatwolf.presence.dto.PresenceEvent;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Cost of one presence event through PresenceService.ingest against a real Redis (Testcontainers, needs Docker)
+ * heartbeat: HEARTBEAT of an online user, the steady state, aggregated status unchanged
+ * toggle: ONLINE/AWAY alternation, every event changes the aggregated status and is broadcast
+ * The debouncer is disabled (no window, no grace period), so each call is one update script round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PresenceUpdateBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean sharedIdempotency;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray flips = new AtomicLongArray(USERS);
+
+    private GenericContainer<?> redis;
+    private ConfigurableApplicationContext context;
+    private PresenceService presenceService;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Redis Stack ships RedisBloom, needed by the shared idempotency buckets
+        redis = new GenericContainer<>(DockerImageName.parse("redis/redis-stack-server:7.4.0-v3"))
+                .withExposedPorts(6379);
+        redis.start();
+
+        context = new SpringApplicationBuilder(PresenceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.redis.host=" + redis.getHost(),
+                        "spring.data.redis.port=" + redis.getMappedPort(6379),
+                        "spring.data.redis.password=",
+                        "eureka.client.enabled=false",
+                        "management.tracing.enabled=false",
+                        "presence.migration.enabled=false",
+                        "presence.debounce.window-ms=0",
+                        "presence.debounce.offline-grace-ms=0",
+                        "presence.idempotency.shared=" + sharedIdempotency,
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+        presenceService = context.getBean(PresenceService.class);
+
+        for (int i = 0; i < USERS; i++) {
+            presenceService.ingest(event(i, PresenceStatus.ONLINE));
+        }
+    }
+
+    @Benchmark
+    public void heartbeat(ThreadState state) {
+        presenceService.ingest(event(state.random.nextInt(USERS), PresenceStatus.HEARTBEAT));
+    }
+
+    @Benchmark
+    public void toggle(ThreadState state) {
+        int user = state.random.nextInt(USERS);
+        PresenceStatus status = (flips.incrementAndGet(user) & 1) == 1 ? PresenceStatus.AWAY : PresenceStatus.ONLINE;
+        presenceService.ingest(event(user, status));
+    }
+
+    private PresenceEvent event(int user, PresenceStatus status) {
+        return new PresenceEvent(
+                "bench-" + sequence.incrementAndGet(),
+                String.valueOf(1_000_000 + user),
+                status,
+                Instant.now(),
+                null,
+                "bench-connection-" + user);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+}
@@ -3,10 +3,12 @@ package com.chatwolf.presence.config;
 import io.lettuce.core.ClientOptions;
 import io.lettuce.core.SocketOptions;
 import java.time.Duration;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
@@ -14,6 +16,7 @@ import org.springframework.data.redis.connection.lettuce.LettuceClientConfigurat
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
@@ -21,6 +24,9 @@ import org.springframework.data.redis.serializer.RedisSerializationContext;
 @Slf4j
 public class RedisConfig {
 
+    // Also bounds blocking reads such as XREADGROUP BLOCK
+    public static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(2);
+
     @Bean
     RedisConnectionFactory redisConnectionFactory(
             @Value("${spring.data.redis.host}") String host,
@@ -43,7 +49,7 @@ public class RedisConfig {
                 .build();
 
         LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
-                .commandTimeout(Duration.ofSeconds(2))
+                .commandTimeout(COMMAND_TIMEOUT)
                 .shutdownTimeout(Duration.ofMillis(100))
                 .clientOptions(clientOptions)
                 .build();
@@ -71,4 +77,47 @@ public class RedisConfig {
     ReactiveStringRedisTemplate reactiveStringRedisTemplate(ReactiveRedisConnectionFactory factory) {
         return new ReactiveStringRedisTemplate(factory, RedisSerializationContext.string());
     }
+
+    /**
+     * Idempotency, stale check, connection state and aggregation in one round trip, executed with EVALSHA
+     * Returns {code, aggregated status}
+     */
+    @Bean
+    @SuppressWarnings("rawtypes")
+    RedisScript<List> presenceUpdateScript() {
+        return RedisScript.of(new ClassPathResource("scripts/presence-update.lua"), List.class);
+    }
+
+    /**
+     * Moves a legacy status/timestamp key pair into the hash record
+     */
+    @Bean
+    RedisScript<Long> presenceMigrateScript() {
+        return RedisScript.of(new ClassPathResource("scripts/presence-migrate.lua"), Long.class);
+    }
+
+    /**
+     * Expires users of one online index shard whose connections stopped heartbeating
+     */
+    @Bean
+    @SuppressWarnings("rawtypes")
+    RedisScript<List> presenceSweepScript() {
+        return RedisScript.of(new ClassPathResource("scripts/presence-sweep.lua"), List.class);
+    }
+
+    /**
+     * BITCOUNT over the union of daily activity bitmaps
+     */
+    @Bean
+    RedisScript<Long> presenceActiveCountScript() {
+        return RedisScript.of(new ClassPathResource("scripts/presence-active-count.lua"), Long.class);
+    }
+
+    /**
+     * Acquire or renew a leader lease
+     */
+    @Bean
+    RedisScript<Long> presenceLeaderScript() {
+        return RedisScript.of(new ClassPathResource("scripts/presence-leader.lua"), Long.class);
+    }
 }
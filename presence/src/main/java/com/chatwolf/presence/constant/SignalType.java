@@ -0,0 +1,7 @@
+package com.chatwolf.presence.constant;
+
+public enum SignalType {
+    TYPING,
+    RECORDING_AUDIO,
+    STOPPED
+}
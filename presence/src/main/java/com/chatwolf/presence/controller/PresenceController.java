@@ -1,27 +1,52 @@
 package com.chatwolf.presence.controller;
 
+import com.chatwolf.presence.dto.ActiveUsersResponse;
+import com.chatwolf.presence.dto.LastSeenResponse;
+import com.chatwolf.presence.dto.PresenceBatchRequest;
 import com.chatwolf.presence.dto.PresenceEvent;
 import com.chatwolf.presence.dto.PresenceResponse;
+import com.chatwolf.presence.dto.PresenceStatsResponse;
+import com.chatwolf.presence.service.PresenceAnalyticsService;
 import com.chatwolf.presence.service.PresenceService;
+import jakarta.validation.Valid;
 import java.time.Duration;
-import lombok.AllArgsConstructor;
+import java.time.LocalDate;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/presence")
-@AllArgsConstructor
 public class PresenceController {
 
     private final PresenceService presenceService;
+    private final PresenceAnalyticsService analyticsService;
+    private final int maxBatchUserIds;
+
+    public PresenceController(
+            PresenceService presenceService,
+            PresenceAnalyticsService analyticsService,
+            @Value("${presence.batch.max-user-ids:200}") int maxBatchUserIds) {
+        this.presenceService = presenceService;
+        this.analyticsService = analyticsService;
+        this.maxBatchUserIds = maxBatchUserIds;
+    }
 
     /**
      * Get presence status for a specific user
@@ -34,30 +59,106 @@ public class PresenceController {
     }
 
     /**
-     * Server-Sent Events endpoint for real-time presence updates
-     * GET /api/presence/stream
+     * Get presence status for many users at once (contact lists)
+     * POST /api/presence/batch
+     * Accept: application/json (collected) or application/x-ndjson (streamed)
+     */
+    @PostMapping(
+            path = "/batch",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PresenceResponse> getPresences(@Valid @RequestBody PresenceBatchRequest request) {
+        List<String> userIds = normalizeUserIds(request.getUserIds());
+
+        log.debug("Fetching presence for {} users", userIds.size());
+        return presenceService.getPresences(userIds);
+    }
+
+    /**
+     * Get last-seen time for many users at once
+     * POST /api/presence/last-seen
+     * Accept: application/json (collected) or application/x-ndjson (streamed)
+     */
+    @PostMapping(
+            path = "/last-seen",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<LastSeenResponse> getLastSeen(@Valid @RequestBody PresenceBatchRequest request) {
+        List<String> userIds = normalizeUserIds(request.getUserIds());
+
+        log.debug("Fetching last seen for {} users", userIds.size());
+        return analyticsService.getLastSeen(userIds);
+    }
+
+    /**
+     * Get users per presence status and the online total, read from counters kept on every status change
+     * GET /api/presence/stats
+     */
+    @GetMapping("/stats")
+    public Mono<PresenceStatsResponse> getStats() {
+        return presenceService.getStats();
+    }
+
+    /**
+     * Get daily and monthly active users, for today (UTC) when no date is given
+     * GET /api/presence/analytics/active-users?date=2026-01-31
+     */
+    @GetMapping("/analytics/active-users")
+    public Mono<ActiveUsersResponse> getActiveUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : analyticsService.today();
+        return analyticsService.getActiveUsers(day);
+    }
+
+    /**
+     * Server-Sent Events endpoint for real-time presence updates of the given users (contacts)
+     * GET /api/presence/stream?userIds=a,b,c
      */
     @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<PresenceEvent>> streamPresence() {
-        log.debug("New SSE connection established");
+    public Flux<ServerSentEvent<PresenceEvent>> streamPresence(@RequestParam List<String> userIds) {
+        List<String> watched = normalizeUserIds(userIds);
+        log.debug("New SSE connection established for {} users", watched.size());
 
-        // Presence events
+        // Presence events of the watched users only, a single subscription so the registry's coalescing buffer
+        // is the only queue in front of the client
+        Sinks.Empty<Void> eventsDone = Sinks.empty();
         Flux<ServerSentEvent<PresenceEvent>> events = presenceService
-                .subscribeToPresence()
+                .subscribeToPresence(watched)
                 .map(event -> ServerSentEvent.<PresenceEvent>builder()
                         .id(event.getEventId())
                         .event("presence")
                         .data(event)
-                        .build());
+                        .build())
+                .doFinally(signal -> eventsDone.tryEmitEmpty());
 
-        // Keepalive comments every 30 seconds
+        // Keepalive comments every 30 seconds, ending with the events so a disconnected slow subscriber
+        // sees its response complete and reconnects
         Flux<ServerSentEvent<PresenceEvent>> keepalive = Flux.interval(Duration.ofSeconds(30))
                 .map(tick -> ServerSentEvent.<PresenceEvent>builder()
                         .comment("keepalive")
-                        .build());
+                        .build())
+                .takeUntilOther(eventsDone.asMono());
 
-        return Flux.merge(events, keepalive)
+        // Prefetch 1, the merge must not buffer events the registry could still coalesce
+        return Flux.merge(1, events, keepalive)
                 .doOnCancel(() -> log.debug("SSE connection closed"))
                 .doOnError(ex -> log.error("SSE connection error", ex));
     }
+
+    /**
+     * Drop blank and repeated ids, reject requests above the configured limit
+     */
+    private List<String> normalizeUserIds(List<String> requested) {
+        List<String> userIds = requested.stream()
+                .filter(userId -> userId != null && !userId.isBlank())
+                .distinct()
+                .toList();
+
+        if (userIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one userId is required");
+        }
+        if (userIds.size() > maxBatchUserIds) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Too many userIds, maximum is " + maxBatchUserIds);
+        }
+        return userIds;
+    }
 }
@@ -0,0 +1,101 @@
+package com.chatwolf.presence.controller;
+
+import com.chatwolf.presence.dto.SignalEvent;
+import com.chatwolf.presence.service.SignalService;
+import jakarta.validation.Valid;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/presence/signals")
+public class SignalController {
+
+    private final SignalService signalService;
+    private final int maxConversationIds;
+
+    public SignalController(
+            SignalService signalService,
+            @Value("${presence.signals.max-conversation-ids:100}") int maxConversationIds) {
+        this.signalService = signalService;
+        this.maxConversationIds = maxConversationIds;
+    }
+
+    /**
+     * Send an ephemeral signal (typing, recording audio, stopped) to a conversation
+     * POST /api/presence/signals
+     * Always 202, throttled signals are dropped silently since clients resend them anyway
+     */
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void sendSignal(@Valid @RequestBody SignalEvent signal) {
+        if (!signalService.send(signal)) {
+            log.debug(
+                    "Signal throttled: userId={}, conversationId={}", signal.getUserId(), signal.getConversationId());
+        }
+    }
+
+    /**
+     * Server-Sent Events endpoint for ephemeral signals of the given conversations
+     * GET /api/presence/signals/stream?conversationIds=a,b,c
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SignalEvent>> streamSignals(@RequestParam List<String> conversationIds) {
+        List<String> watched = normalizeConversationIds(conversationIds);
+        log.debug("New SSE signal connection established for {} conversations", watched.size());
+
+        Sinks.Empty<Void> signalsDone = Sinks.empty();
+        Flux<ServerSentEvent<SignalEvent>> signals = signalService
+                .subscribe(watched)
+                .map(signal -> ServerSentEvent.<SignalEvent>builder()
+                        .event("signal")
+                        .data(signal)
+                        .build())
+                .doFinally(signal -> signalsDone.tryEmitEmpty());
+
+        // Keepalive comments every 30 seconds, ending with the signals so the response completes on shutdown
+        Flux<ServerSentEvent<SignalEvent>> keepalive = Flux.interval(Duration.ofSeconds(30))
+                .map(tick -> ServerSentEvent.<SignalEvent>builder()
+                        .comment("keepalive")
+                        .build())
+                .takeUntilOther(signalsDone.asMono());
+
+        return Flux.merge(signals, keepalive)
+                .doOnCancel(() -> log.debug("SSE signal connection closed"))
+                .doOnError(ex -> log.error("SSE signal connection error", ex));
+    }
+
+    /**
+     * Drop blank and repeated ids, reject requests above the configured limit
+     */
+    private List<String> normalizeConversationIds(List<String> requested) {
+        List<String> conversationIds = requested.stream()
+                .filter(conversationId -> conversationId != null && !conversationId.isBlank())
+                .distinct()
+                .toList();
+
+        if (conversationIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one conversationId is required");
+        }
+        if (conversationIds.size() > maxConversationIds) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Too many conversationIds, maximum is " + maxConversationIds);
+        }
+        return conversationIds;
+    }
+}
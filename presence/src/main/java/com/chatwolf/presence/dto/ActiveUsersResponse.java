@@ -0,0 +1,18 @@
+package com.chatwolf.presence.dto;
+
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ActiveUsersResponse {
+
+    private LocalDate date;
+
+    private long dailyActiveUsers;
+
+    private long monthlyActiveUsers;
+}
@@ -0,0 +1,16 @@
+package com.chatwolf.presence.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class LastSeenResponse {
+
+    private String userId;
+
+    private Instant lastSeen;
+}
@@ -0,0 +1,18 @@
+package com.chatwolf.presence.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class PresenceBatchRequest {
+
+    @JsonProperty("userIds")
+    @NotEmpty
+    private List<String> userIds;
+}
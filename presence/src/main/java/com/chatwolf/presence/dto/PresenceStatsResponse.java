@@ -0,0 +1,16 @@
+package com.chatwolf.presence.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class PresenceStatsResponse {
+
+    private long onlineUsers;
+
+    private Map<String, Long> byStatus;
+}
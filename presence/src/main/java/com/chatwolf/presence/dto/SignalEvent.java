@@ -0,0 +1,36 @@
+package com.chatwolf.presence.dto;
+
+import com.chatwolf.presence.constant.SignalType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignalEvent {
+
+    @JsonProperty("conversationId")
+    @NotBlank
+    private String conversationId;
+
+    @JsonProperty("userId")
+    @NotBlank
+    private String userId;
+
+    @JsonProperty("type")
+    @NotNull
+    private SignalType type;
+
+    @JsonProperty("timestamp")
+    private Instant timestamp;
+
+    @JsonProperty("expiresAt")
+    private Instant expiresAt;
+}
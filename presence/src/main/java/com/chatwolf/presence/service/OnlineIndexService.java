@@ -0,0 +1,149 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.constant.PresenceStatus;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Online user index split across N sorted set shards plus per-minute HyperLogLogs
+ * Shards hold userId scored by last event time and are pruned by score, so no single hot key and no mass expiry.
+ * Pruning is done by PresenceSweeper.
+ * The HyperLogLogs answer approximate counts with one PFCOUNT, the stats hashes exact counts per status.
+ * HyperLogLogs and stats hashes are sharded like the sorted sets, a user always lands on the same shard index.
+ */
+@Slf4j
+@Service
+public class OnlineIndexService {
+
+    // Aggregated statuses with a counter in the stats hash
+    public static final List<PresenceStatus> COUNTED_STATUSES = List.of(PresenceStatus.ONLINE, PresenceStatus.AWAY);
+
+    private final ReactiveStringRedisTemplate reactiveRedis;
+    private final Clock clock = Clock.systemUTC();
+
+    private final String onlineUsersKey;
+    private final int shards;
+    private final long ttlSeconds;
+    private final long hllBucketSeconds;
+    private final List<String> shardKeys;
+    private final List<String> statsKeys;
+
+    public OnlineIndexService(
+            ReactiveStringRedisTemplate reactiveRedis,
+            @Value("${presence.redis.online-users-key}") String onlineUsersKey,
+            @Value("${presence.online.shards:16}") int shards,
+            @Value("${presence.redis.ttl-seconds}") long ttlSeconds,
+            @Value("${presence.online.hll-bucket-seconds:60}") long hllBucketSeconds) {
+
+        this.reactiveRedis = reactiveRedis;
+        this.onlineUsersKey = onlineUsersKey;
+        this.shards = shards;
+        this.ttlSeconds = ttlSeconds;
+        this.hllBucketSeconds = hllBucketSeconds;
+        this.shardKeys = IntStream.range(0, shards)
+                .mapToObj(shard -> onlineUsersKey + ":" + shard)
+                .toList();
+        this.statsKeys = IntStream.range(0, shards)
+                .mapToObj(shard -> onlineUsersKey + ":stats:" + shard)
+                .toList();
+    }
+
+    public String shardKey(String userId) {
+        return shardKeys.get(shardIndex(userId));
+    }
+
+    /**
+     * Stats hash of the user's shard
+     */
+    public String statsKey(String userId) {
+        return statsKeys.get(shardIndex(userId));
+    }
+
+    /**
+     * HyperLogLog bucket of the user's shard receiving users seen online now
+     */
+    public String currentHllKey(String userId) {
+        return hllKey(clock.millis() / 1000 / hllBucketSeconds, shardIndex(userId));
+    }
+
+    /**
+     * Buckets live long enough to cover the presence ttl window
+     */
+    public long hllTtlSeconds() {
+        return ttlSeconds + hllBucketSeconds * 2;
+    }
+
+    /**
+     * Approximate number of users seen online within the presence ttl, ~0.81% standard error
+     */
+    public Mono<Long> approximateCount() {
+        return reactiveRedis.opsForHyperLogLog().size(windowHllKeys().toArray(String[]::new));
+    }
+
+    /**
+     * Users per aggregated status, kept incrementally by the update and sweep scripts, one HGETALL per shard
+     * OFFLINE users are not counted. Counted records carry no ttl, so only the sweeper takes users off a counter.
+     */
+    public Mono<Map<PresenceStatus, Long>> statusCounts() {
+        return Flux.fromIterable(statsKeys)
+                .flatMap(statsKey -> reactiveRedis.<String, String>opsForHash().entries(statsKey))
+                .collectList()
+                .map(OnlineIndexService::toStatusCounts);
+    }
+
+    public List<String> shardKeys() {
+        return shardKeys;
+    }
+
+    /**
+     * Stats hashes in shard order, statsKeys().get(i) counts the users of shardKeys().get(i)
+     */
+    public List<String> statsKeys() {
+        return statsKeys;
+    }
+
+    private int shardIndex(String userId) {
+        return Math.floorMod(userId.hashCode(), shards);
+    }
+
+    private List<String> windowHllKeys() {
+        long current = clock.millis() / 1000 / hllBucketSeconds;
+        long window = Math.max(1, (ttlSeconds + hllBucketSeconds - 1) / hllBucketSeconds);
+
+        List<String> keys = new ArrayList<>();
+        for (long bucket = current - window + 1; bucket <= current; bucket++) {
+            for (int shard = 0; shard < shards; shard++) {
+                keys.add(hllKey(bucket, shard));
+            }
+        }
+        return keys;
+    }
+
+    private String hllKey(long bucket, int shard) {
+        return onlineUsersKey + ":hll:" + bucket + ":" + shard;
+    }
+
+    private static Map<PresenceStatus, Long> toStatusCounts(List<Map.Entry<String, String>> entries) {
+        Map<PresenceStatus, Long> counts = new EnumMap<>(PresenceStatus.class);
+        for (PresenceStatus status : COUNTED_STATUSES) {
+            counts.put(status, 0L);
+        }
+        for (Map.Entry<String, String> entry : entries) {
+            PresenceStatus status = PresenceStatus.valueOf(entry.getKey());
+            if (counts.containsKey(status)) {
+                counts.merge(status, Long.parseLong(entry.getValue()), Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,165 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.dto.ActiveUsersResponse;
+import com.chatwolf.presence.dto.LastSeenResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Last-seen history and daily activity bitmaps, written by the presence update script
+ * Last seen: small hashes of 100 users each, kept in Redis' compact listpack encoding.
+ * Activity: one bitmap per UTC day with a bit per numeric userId, DAU/MAU are BITCOUNTs.
+ */
+@Service
+public class PresenceAnalyticsService {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    // Users per last-seen hash, stays under the default hash-max-listpack-entries of 128
+    private static final long LAST_SEEN_BUCKET_SIZE = 100;
+
+    // Non-numeric ids are hashed into this many last-seen buckets
+    private static final int LAST_SEEN_HASHED_BUCKETS = 65536;
+
+    // SETBIT offsets are limited to 2^32 - 1
+    private static final long MAX_BIT_OFFSET = (1L << 32) - 1;
+
+    private final ReactiveStringRedisTemplate reactiveRedis;
+    private final RedisScript<Long> activeCountScript;
+    private final Clock clock = Clock.systemUTC();
+
+    private final String lastSeenPrefix;
+    private final String activityPrefix;
+    private final long activityRetentionDays;
+    private final int monthlyWindowDays;
+    private final int batchConcurrency;
+
+    public PresenceAnalyticsService(
+            ReactiveStringRedisTemplate reactiveRedis,
+            @Qualifier("presenceActiveCountScript") RedisScript<Long> activeCountScript,
+            @Value("${presence.analytics.last-seen-key-prefix:presence:lastseen:}") String lastSeenPrefix,
+            @Value("${presence.analytics.activity-key-prefix:presence:active:}") String activityPrefix,
+            @Value("${presence.analytics.activity-retention-days:35}") long activityRetentionDays,
+            @Value("${presence.analytics.monthly-window-days:30}") int monthlyWindowDays,
+            @Value("${presence.batch.concurrency:64}") int batchConcurrency) {
+
+        this.reactiveRedis = reactiveRedis;
+        this.activeCountScript = activeCountScript;
+        this.lastSeenPrefix = lastSeenPrefix;
+        this.activityPrefix = activityPrefix;
+        this.activityRetentionDays = activityRetentionDays;
+        this.monthlyWindowDays = monthlyWindowDays;
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    /**
+     * Last-seen hash holding the given user, field is the userId
+     */
+    public String lastSeenKey(String userId) {
+        long id = numericId(userId);
+        if (id >= 0) {
+            return lastSeenPrefix + id / LAST_SEEN_BUCKET_SIZE;
+        }
+        return lastSeenPrefix + "h:" + Math.floorMod(userId.hashCode(), LAST_SEEN_HASHED_BUCKETS);
+    }
+
+    /**
+     * Activity bitmap of the UTC day the event happened on
+     */
+    public String activityKey(Instant timestamp) {
+        return activityKey(LocalDate.ofInstant(timestamp, ZoneOffset.UTC));
+    }
+
+    /**
+     * Bit offset of the user in the activity bitmaps, empty for ids that cannot be used as an offset
+     */
+    public String activityOffset(String userId) {
+        long id = numericId(userId);
+        return id >= 0 && id <= MAX_BIT_OFFSET ? String.valueOf(id) : "";
+    }
+
+    public long activityTtlSeconds() {
+        return Duration.ofDays(activityRetentionDays).toSeconds();
+    }
+
+    /**
+     * Last-seen time of many users, HGETs are pipelined on the shared connection
+     * Results keep the order of the requested ids, lastSeen is null for users never seen
+     */
+    public Flux<LastSeenResponse> getLastSeen(Collection<String> userIds) {
+        return Flux.fromIterable(userIds)
+                .flatMapSequential(
+                        userId -> reactiveRedis
+                                .<String, String>opsForHash()
+                                .get(lastSeenKey(userId), userId)
+                                .map(millis -> new LastSeenResponse(
+                                        userId, Instant.ofEpochMilli(Long.parseLong(millis))))
+                                .defaultIfEmpty(new LastSeenResponse(userId, null)),
+                        batchConcurrency);
+    }
+
+    /**
+     * Daily active users of the given day and monthly active users of the window ending on it
+     */
+    public Mono<ActiveUsersResponse> getActiveUsers(LocalDate day) {
+        Mono<Long> daily = countActive(List.of(activityKey(day)));
+
+        List<String> monthKeys = new ArrayList<>(monthlyWindowDays);
+        for (int i = 0; i < monthlyWindowDays; i++) {
+            monthKeys.add(activityKey(day.minusDays(i)));
+        }
+        Mono<Long> monthly = countActive(monthKeys);
+
+        return Mono.zip(daily, monthly).map(counts -> new ActiveUsersResponse(day, counts.getT1(), counts.getT2()));
+    }
+
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * BITCOUNT of one bitmap, or of the union of several through a temporary BITOP OR key
+     */
+    private Mono<Long> countActive(List<String> dayKeys) {
+        List<String> keys = new ArrayList<>(dayKeys.size() + 1);
+        keys.add(activityPrefix + "tmp:" + UUID.randomUUID());
+        keys.addAll(dayKeys);
+
+        return reactiveRedis.execute(activeCountScript, keys).next().defaultIfEmpty(0L);
+    }
+
+    private String activityKey(LocalDate day) {
+        return activityPrefix + day.format(DAY_FORMAT);
+    }
+
+    /**
+     * Non-negative numeric userId, -1 otherwise
+     */
+    private static long numericId(String userId) {
+        if (userId.isEmpty() || userId.length() > 18) {
+            return -1;
+        }
+        for (int i = 0; i < userId.length(); i++) {
+            char c = userId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(userId);
+    }
+}
@@ -0,0 +1,63 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.constant.PresenceStatus;
+import com.chatwolf.presence.dto.PresenceEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+/**
+ * Applies aggregated status changes published by the update and sweep scripts on every instance
+ * Whichever replica wrote the change, local near-cache entries are dropped and local SSE streams are notified.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PresenceChangeListener {
+
+    private final RedisMessageListenerContainer redisContainer;
+    private final ObjectMapper objectMapper;
+    private final PresenceNearCache nearCache;
+    private final PresenceSubscriptionRegistry subscriptions;
+
+    @Value("${presence.redis.changes-channel}")
+    private String changesChannel;
+
+    @PostConstruct
+    public void initChangesSubscription() {
+        MessageListener listener = (message, pattern) -> {
+            try {
+                onChange(objectMapper.readTree(message.getBody()));
+            } catch (Exception ex) {
+                log.error("Failed to apply presence change: {}", ex.getMessage());
+            }
+        };
+
+        redisContainer.addMessageListener(listener, new ChannelTopic(changesChannel));
+        log.info("Subscribed to presence changes channel: {}", changesChannel);
+    }
+
+    private void onChange(JsonNode change) {
+        String userId = change.path("userId").asText();
+        nearCache.invalidate(userId);
+
+        String connectionId = change.path("connectionId").asText();
+        PresenceEvent event = new PresenceEvent(
+                change.path("eventId").asText(),
+                userId,
+                PresenceStatus.valueOf(change.path("status").asText()),
+                Instant.ofEpochMilli(change.path("timestamp").asLong()),
+                null,
+                connectionId.isEmpty() ? null : connectionId);
+
+        subscriptions.publish(event);
+    }
+}
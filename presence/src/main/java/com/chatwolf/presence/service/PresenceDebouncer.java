@@ -0,0 +1,189 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.constant.PresenceStatus;
+import com.chatwolf.presence.dto.PresenceEvent;
+import io.micrometer.core.instrument.Counter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces the events of each connection so only its latest status within a window reaches Redis and subscribers
+ *
+ * - a live event (ONLINE, AWAY, HEARTBEAT) on a quiet connection is applied at once and opens a window, later ones
+ *   inside the window replace each other and the latest is applied when the window ends
+ * - OFFLINE is always held for the grace period, a newer event of the same connection replaces it
+ * - repeated OFFLINE events of one connection collapse into the latest one and keep the first deadline
+ * - a HEARTBEAT never replaces a pending ONLINE or AWAY, it would hide the status change
+ *
+ * Every offered event's onDone runs once with the result of the update that covered it, so stream entries are
+ * acknowledged only after their state reached Redis. Only events replaced this way count as suppressed.
+ */
+@Slf4j
+class PresenceDebouncer {
+
+    private final long graceNanos;
+    private final long windowNanos;
+    private final Predicate<PresenceEvent> apply;
+    private final Counter flapsSuppressed;
+
+    private final Map<ConnectionKey, Slot> slots = new ConcurrentHashMap<>();
+
+    private record ConnectionKey(String userId, String connection) {}
+
+    // Callbacks of the held event and of every event it replaced
+    private record Held(PresenceEvent event, long deadline, List<Consumer<Boolean>> onDone) {
+
+        void complete(boolean applied) {
+            onDone.forEach(callback -> callback.accept(applied));
+        }
+    }
+
+    // Only mutated inside compute on its key
+    private static final class Slot {
+        private Held pending;
+        private long windowEnd;
+
+        private Slot(long windowEnd) {
+            this.windowEnd = windowEnd;
+        }
+    }
+
+    PresenceDebouncer(Duration grace, Duration window, Predicate<PresenceEvent> apply, Counter flapsSuppressed) {
+        this.graceNanos = grace.toNanos();
+        this.windowNanos = window.toNanos();
+        this.apply = apply;
+        this.flapsSuppressed = flapsSuppressed;
+    }
+
+    void offer(PresenceEvent event, Consumer<Boolean> onDone) {
+        if (graceNanos <= 0 && windowNanos <= 0) {
+            onDone.accept(apply.test(event));
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<Held> applyNow = new ArrayList<>();
+
+        slots.compute(new ConnectionKey(event.getUserId(), PresenceService.connectionKey(event)), (key, current) -> {
+            Slot slot = current != null ? current : new Slot(now);
+            Held pending = slot.pending;
+
+            if (pending != null) {
+                slot.pending = merge(pending, event, onDone, now, slot.windowEnd);
+            } else if (event.getStatus() == PresenceStatus.OFFLINE) {
+                slot.pending = new Held(event, now + graceNanos, callbacks(onDone));
+            } else if (now - slot.windowEnd < 0) {
+                slot.pending = new Held(event, slot.windowEnd, callbacks(onDone));
+            } else {
+                // Leading edge, a quiet connection's change goes out without delay
+                slot.windowEnd = now + windowNanos;
+                applyNow.add(new Held(event, now, callbacks(onDone)));
+            }
+
+            // e.g. a reconnect after the window ended cancels the held OFFLINE and is applied right away
+            if (slot.pending != null && now - slot.pending.deadline() >= 0) {
+                applyNow.add(release(slot, now));
+            }
+            return slot;
+        });
+
+        applyNow.forEach(this::applyHeld);
+    }
+
+    /**
+     * Apply every pending event whose window or grace period is over
+     */
+    void flushExpired() {
+        long now = System.nanoTime();
+        List<Held> expired = new ArrayList<>();
+
+        for (ConnectionKey key : slots.keySet()) {
+            slots.computeIfPresent(key, (connection, slot) -> {
+                if (slot.pending != null && now - slot.pending.deadline() >= 0) {
+                    expired.add(release(slot, now));
+                }
+                return slot.pending == null && now - slot.windowEnd >= 0 ? null : slot;
+            });
+        }
+
+        expired.forEach(this::applyHeld);
+    }
+
+    /**
+     * Apply everything still pending, used on shutdown
+     */
+    void flushAll() {
+        List<Held> remaining = new ArrayList<>();
+        for (ConnectionKey key : slots.keySet()) {
+            Slot slot = slots.remove(key);
+            if (slot != null && slot.pending != null) {
+                remaining.add(slot.pending);
+            }
+        }
+        remaining.forEach(this::applyHeld);
+    }
+
+    private void applyHeld(Held held) {
+        held.complete(apply.test(held.event()));
+    }
+
+    /**
+     * Take the slot's pending event for applying, a live one opens the next window
+     * An applied OFFLINE closes the connection, so the next live event goes out at once.
+     */
+    private Held release(Slot slot, long now) {
+        Held held = slot.pending;
+        slot.pending = null;
+        slot.windowEnd = held.event().getStatus() == PresenceStatus.OFFLINE ? now : now + windowNanos;
+        return held;
+    }
+
+    /**
+     * Fold an event into the pending one of its connection, the event kept carries both callbacks
+     */
+    private Held merge(Held pending, PresenceEvent event, Consumer<Boolean> onDone, long now, long windowEnd) {
+        pending.onDone().add(onDone);
+
+        if (pending.event().getEventId().equals(event.getEventId())) {
+            // Redelivery of the event already pending
+            return pending;
+        }
+
+        flapsSuppressed.increment();
+        PresenceEvent current = pending.event();
+        boolean keepPending = event.getTimestamp().isBefore(current.getTimestamp())
+                || (event.getStatus() == PresenceStatus.HEARTBEAT
+                        && (current.getStatus() == PresenceStatus.ONLINE
+                                || current.getStatus() == PresenceStatus.AWAY));
+        if (keepPending) {
+            return pending;
+        }
+
+        boolean wasOffline = current.getStatus() == PresenceStatus.OFFLINE;
+        boolean isOffline = event.getStatus() == PresenceStatus.OFFLINE;
+        long deadline;
+        if (isOffline && !wasOffline) {
+            // A connection going away is always given the full grace period
+            deadline = now + graceNanos;
+        } else if (!isOffline && wasOffline) {
+            // The OFFLINE never reached Redis, the reconnect only waits for the window still open
+            log.debug("Reconnect within grace period: userId={}", event.getUserId());
+            deadline = now - windowEnd < 0 ? windowEnd : now;
+        } else {
+            deadline = pending.deadline();
+        }
+        return new Held(event, deadline, pending.onDone());
+    }
+
+    private static List<Consumer<Boolean>> callbacks(Consumer<Boolean> onDone) {
+        List<Consumer<Boolean>> callbacks = new ArrayList<>();
+        callbacks.add(onDone);
+        return callbacks;
+    }
+}
@@ -0,0 +1,115 @@
+package com.chatwolf.presence.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Two-level duplicate detection for presence events
+ * Local: bounded Caffeine set of recent eventIds, answers most duplicates without Redis.
+ * Shared: per-minute Redis Bloom filters checked inside the update script, needed only when the same event
+ * can reach several instances (pub/sub fan-out, stream entries reclaimed from another consumer).
+ */
+@Service
+public class PresenceIdempotencyFilter {
+
+    private static final String BUCKET_PREFIX = "presence:processed:";
+
+    private final Cache<String, Boolean> recentEvents;
+    private final Counter localDuplicates;
+
+    private final boolean sharedEnabled;
+    private final long bucketSeconds;
+    private final int windowBuckets;
+    private final long bloomCapacity;
+    private final double bloomErrorRate;
+
+    public PresenceIdempotencyFilter(
+            MeterRegistry meterRegistry,
+            @Value("${presence.idempotency.ttl-minutes}") long ttlMinutes,
+            @Value("${presence.idempotency.local-ttl-seconds:60}") long localTtlSeconds,
+            @Value("${presence.idempotency.local-max-size:500000}") long localMaxSize,
+            @Value("${presence.idempotency.shared:true}") boolean sharedEnabled,
+            @Value("${presence.idempotency.bucket-seconds:60}") long bucketSeconds,
+            @Value("${presence.idempotency.bloom-capacity:1000000}") long bloomCapacity,
+            @Value("${presence.idempotency.bloom-error-rate:0.0001}") double bloomErrorRate) {
+
+        this.sharedEnabled = sharedEnabled;
+        this.bucketSeconds = bucketSeconds;
+        this.windowBuckets = (int) Math.max(1, Duration.ofMinutes(ttlMinutes).toSeconds() / bucketSeconds);
+        this.bloomCapacity = bloomCapacity;
+        this.bloomErrorRate = bloomErrorRate;
+
+        this.recentEvents = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, recentEvents, "presence_recent_events");
+
+        this.localDuplicates = Counter.builder("presence.events.ignored.duplicate.local")
+                .description("Duplicate events rejected by the in-process filter without touching Redis")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True when this instance already applied the event
+     */
+    public boolean isSeen(String eventId) {
+        boolean seen = recentEvents.getIfPresent(eventId) != null;
+        if (seen) {
+            localDuplicates.increment();
+        }
+        return seen;
+    }
+
+    /**
+     * Remember an applied event locally, only after the update succeeded so a failed one can be redelivered
+     */
+    public void markSeen(String eventId) {
+        recentEvents.put(eventId, Boolean.TRUE);
+    }
+
+    /**
+     * Bloom buckets covering the idempotency window, current bucket first
+     */
+    public List<String> bucketKeys() {
+        long current = System.currentTimeMillis() / 1000 / bucketSeconds;
+        List<String> keys = new ArrayList<>(windowBuckets);
+        for (long bucket = current; bucket > current - windowBuckets; bucket--) {
+            keys.add(BUCKET_PREFIX + bucket);
+        }
+        return keys;
+    }
+
+    /**
+     * Script flag enabling the shared bloom check
+     */
+    public String sharedFlag() {
+        return sharedEnabled ? "1" : "0";
+    }
+
+    public long bucketTtlSeconds() {
+        return bucketSeconds * (windowBuckets + 1);
+    }
+
+    public long bloomCapacity() {
+        return bloomCapacity;
+    }
+
+    /**
+     * Plain decimal, avoids exponent notation in the script argument
+     */
+    public String bloomErrorRate() {
+        return BigDecimal.valueOf(bloomErrorRate).toPlainString();
+    }
+}
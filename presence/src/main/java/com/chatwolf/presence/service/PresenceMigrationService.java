@@ -0,0 +1,135 @@
+package com.chatwolf.presence.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+/**
+ * One-off migration of presence:user:{id} and presence:user:{id}:ts string pairs into per-user hashes
+ * Legacy keys expire on their own within the presence ttl, this only avoids users flickering offline on rollout.
+ * A completed run leaves a marker key, later startups skip the keyspace scan.
+ */
+@Slf4j
+@Service
+public class PresenceMigrationService {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisScript<Long> presenceMigrateScript;
+    private final OnlineIndexService onlineIndex;
+
+    @Value("${presence.redis.key-prefix}")
+    private String keyPrefix;
+
+    @Value("${presence.migration.marker-key:presence:migration:legacy-keys:done}")
+    private String markerKey;
+
+    @Value("${presence.migration.legacy-key-prefix:presence:user:}")
+    private String legacyKeyPrefix;
+
+    @Value("${presence.migration.enabled:true}")
+    private boolean migrationEnabled;
+
+    @Value("${presence.migration.scan-count:1000}")
+    private long scanCount;
+
+    public PresenceMigrationService(
+            StringRedisTemplate redisTemplate,
+            @Qualifier("presenceMigrateScript") RedisScript<Long> presenceMigrateScript,
+            OnlineIndexService onlineIndex) {
+        this.redisTemplate = redisTemplate;
+        this.presenceMigrateScript = presenceMigrateScript;
+        this.onlineIndex = onlineIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyKeys() {
+        if (!migrationEnabled || legacyKeyPrefix.equals(keyPrefix)) {
+            return;
+        }
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(markerKey))) {
+            log.debug("Presence key migration already completed, skipping");
+            return;
+        }
+
+        long scanned = 0;
+        long migrated = 0;
+
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(legacyKeyPrefix + "*")
+                .count(scanCount)
+                .build();
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String legacyKey = cursor.next();
+                if (legacyKey.endsWith(":ts")) {
+                    continue;
+                }
+
+                scanned++;
+                if (migrateKey(legacyKey)) {
+                    migrated++;
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Presence key migration aborted after {} keys", scanned, ex);
+            return;
+        }
+
+        // Replicas starting together may all scan once, every key is migrated at most once by the script
+        redisTemplate.opsForValue().set(markerKey, Instant.now().toString());
+        log.info("Presence key migration completed. Scanned {}, migrated {}", scanned, migrated);
+    }
+
+    private boolean migrateKey(String legacyKey) {
+        String userId = legacyKey.substring(legacyKeyPrefix.length());
+        String timestampKey = legacyKey + ":ts";
+
+        String status = redisTemplate.opsForValue().get(legacyKey);
+        String timestamp = redisTemplate.opsForValue().get(timestampKey);
+        Long ttlMillis = redisTemplate.getExpire(legacyKey, TimeUnit.MILLISECONDS);
+
+        if (status == null || ttlMillis == null || ttlMillis <= 0) {
+            return false;
+        }
+
+        Long result = redisTemplate.execute(
+                presenceMigrateScript,
+                List.of(
+                        keyPrefix + userId,
+                        legacyKey,
+                        timestampKey,
+                        onlineIndex.shardKey(userId),
+                        onlineIndex.statsKey(userId)),
+                status,
+                String.valueOf(toEpochMillis(timestamp)),
+                String.valueOf(ttlMillis),
+                userId);
+
+        return result != null && result == 1L;
+    }
+
+    /**
+     * Legacy timestamps are ISO-8601, entries written after the Lua update are already epoch millis
+     */
+    private long toEpochMillis(String timestamp) {
+        if (timestamp == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(timestamp);
+        } catch (NumberFormatException ex) {
+            return Instant.parse(timestamp).toEpochMilli();
+        }
+    }
+}
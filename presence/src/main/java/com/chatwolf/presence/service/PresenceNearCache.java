@@ -0,0 +1,53 @@
+package com.chatwolf.presence.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Local cache of aggregated presence status in front of Redis
+ * Every aggregated status change is published on the changes channel, PresenceChangeListener drops the entry.
+ * The short TTL only covers records that expire silently in Redis.
+ */
+@Service
+public class PresenceNearCache {
+
+    private final AsyncCache<String, String> cache;
+
+    public PresenceNearCache(
+            MeterRegistry meterRegistry,
+            @Value("${presence.near-cache.max-size:100000}") long maxSize,
+            @Value("${presence.near-cache.ttl-seconds:10}") long ttlSeconds) {
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "presence_near_cache");
+
+        Gauge.builder("presence.near.cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .description("Hit ratio of the presence near-cache since startup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached status, concurrent misses for a user share one Redis read
+     * An invalidation while the read is in flight discards its result instead of caching it
+     */
+    public Mono<String> get(String userId, Function<String, Mono<String>> loader) {
+        return Mono.fromFuture(() -> cache.get(userId, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    public void invalidate(String userId) {
+        cache.synchronous().invalidate(userId);
+    }
+}
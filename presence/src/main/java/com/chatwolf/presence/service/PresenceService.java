@@ -2,6 +2,8 @@ package com.chatwolf.presence.service;
 
 import com.chatwolf.presence.constant.PresenceStatus;
 import com.chatwolf.presence.dto.PresenceEvent;
+import com.chatwolf.presence.dto.PresenceResponse;
+import com.chatwolf.presence.dto.PresenceStatsResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
@@ -9,21 +11,27 @@ import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
 @Slf4j
 @Service
@@ -34,6 +42,31 @@ public class PresenceService {
     private final ObjectMapper objectMapper;
     private final RedisMessageListenerContainer redisContainer;
     private final MeterRegistry meterRegistry;
+    private final OnlineIndexService onlineIndex;
+    private final PresenceSubscriptionRegistry subscriptions;
+    private final PresenceDebouncer debouncer;
+    private final PresenceNearCache nearCache;
+    private final PresenceIdempotencyFilter idempotencyFilter;
+    private final PresenceAnalyticsService analytics;
+    private final RedisScript<List> presenceUpdateScript;
+
+    private static final String CONNECTIONS_SUFFIX = ":conns";
+    private static final String DEFAULT_CONNECTION = "default";
+    private static final Duration METRICS_TIMEOUT = Duration.ofSeconds(5);
+
+    // Return codes of scripts/presence-update.lua
+    private static final long SCRIPT_CHANGED = 1L;
+    private static final long SCRIPT_UNCHANGED = 2L;
+    private static final long SCRIPT_DUPLICATE = 0L;
+    private static final long SCRIPT_STALE = -1L;
+    private static final long SCRIPT_FAILED = Long.MIN_VALUE;
+
+    // Field of the per-user presence hash holding the aggregated status
+    public static final String FIELD_STATUS = "s";
+
+    private record UpdateResult(long code, PresenceStatus status) {
+        static final UpdateResult FAILED = new UpdateResult(SCRIPT_FAILED, null);
+    }
 
     @Value("${presence.redis.key-prefix}")
     private String keyPrefix;
@@ -44,34 +77,49 @@ public class PresenceService {
     @Value("${presence.redis.channel}")
     private String redisChannel;
 
-    @Value("${presence.redis.online-users-key}")
-    private String onlineUsersKey;
+    @Value("${presence.ingestion.mode:pubsub}")
+    private String ingestionMode;
 
-    @Value("${presence.idempotency.ttl-minutes}")
-    private long idempotencyTtlMinutes;
+    @Value("${presence.redis.changes-channel}")
+    private String changesChannel;
 
-    // Reactive sink for SSE streaming
-    private final Sinks.Many<PresenceEvent> sink = Sinks.many().multicast().onBackpressureBuffer(1000, false);
+    @Value("${presence.batch.concurrency:64}")
+    private int batchConcurrency;
 
     // Metrics
     private final Counter eventsProcessed;
     private final Counter eventsIgnoredDuplicate;
     private final Counter eventsIgnoredStale;
     private final Counter redisErrors;
-    private final AtomicLong onlineUsersCount = new AtomicLong(0);
+    private final Counter flapsSuppressed;
+    private final Map<PresenceStatus, AtomicLong> statusCounts = new EnumMap<>(PresenceStatus.class);
 
     public PresenceService(
             StringRedisTemplate redisTemplate,
             ReactiveStringRedisTemplate reactiveRedis,
             ObjectMapper objectMapper,
             RedisMessageListenerContainer redisContainer,
-            MeterRegistry meterRegistry) {
+            MeterRegistry meterRegistry,
+            OnlineIndexService onlineIndex,
+            PresenceSubscriptionRegistry subscriptions,
+            PresenceNearCache nearCache,
+            PresenceIdempotencyFilter idempotencyFilter,
+            PresenceAnalyticsService analytics,
+            @Qualifier("presenceUpdateScript") RedisScript<List> presenceUpdateScript,
+            @Value("${presence.debounce.offline-grace-ms:5000}") long offlineGraceMs,
+            @Value("${presence.debounce.window-ms:1000}") long debounceWindowMs) {
 
         this.redisTemplate = redisTemplate;
         this.reactiveRedis = reactiveRedis;
         this.objectMapper = objectMapper;
         this.redisContainer = redisContainer;
         this.meterRegistry = meterRegistry;
+        this.onlineIndex = onlineIndex;
+        this.subscriptions = subscriptions;
+        this.nearCache = nearCache;
+        this.idempotencyFilter = idempotencyFilter;
+        this.analytics = analytics;
+        this.presenceUpdateScript = presenceUpdateScript;
 
         // Initialize metrics
         this.eventsProcessed = Counter.builder("presence.events.processed")
@@ -90,8 +138,27 @@ public class PresenceService {
                 .description("Number of Redis operation errors")
                 .register(meterRegistry);
 
-        // Register gauge for online users count
-        Gauge.builder("presence.users.online", onlineUsersCount, AtomicLong::get)
+        this.flapsSuppressed = Counter.builder("presence.events.flaps.suppressed")
+                .description("Number of events replaced by a newer one of the same connection before being applied")
+                .register(meterRegistry);
+
+        this.debouncer = new PresenceDebouncer(
+                Duration.ofMillis(offlineGraceMs),
+                Duration.ofMillis(debounceWindowMs),
+                this::processPresenceEvent,
+                flapsSuppressed);
+
+        // Register gauges for users per status and their total
+        for (PresenceStatus status : OnlineIndexService.COUNTED_STATUSES) {
+            AtomicLong count = new AtomicLong(0);
+            statusCounts.put(status, count);
+            Gauge.builder("presence.users.by_status", count, AtomicLong::get)
+                    .description("Current number of users per aggregated status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder("presence.users.online", statusCounts, PresenceService::sumCounts)
                 .description("Current number of online users")
                 .register(meterRegistry);
 
@@ -100,6 +167,11 @@ public class PresenceService {
 
     @PostConstruct
     public void initRedisSubscription() {
+        if (!"pubsub".equals(ingestionMode)) {
+            log.info("Presence ingestion mode is {}, not subscribing to {}", ingestionMode, redisChannel);
+            return;
+        }
+
         MessageListener listener = (message, pattern) -> {
             try {
                 String json = new String(message.getBody());
@@ -109,7 +181,7 @@ public class PresenceService {
                         event.getUserId(),
                         event.getStatus());
 
-                processPresenceEvent(event);
+                ingest(event);
 
             } catch (Exception ex) {
                 log.error("Failed to process Redis pub/sub message", ex.getMessage());
@@ -123,33 +195,56 @@ public class PresenceService {
     }
 
     /**
-     * Process presence event with idempotency and timestamp checks
+     * Entry point for presence events from any ingestion source that does not redeliver
      */
-    private void processPresenceEvent(PresenceEvent event) {
-        // Idempotency check
-        if (!isEventNew(event.getEventId())) {
-            log.debug("Duplicate event ignored: eventId={}", event.getEventId());
+    public void ingest(PresenceEvent event) {
+        ingest(event, applied -> {});
+    }
+
+    /**
+     * Entry point for presence events, onDone receives true once the event was applied or deliberately dropped
+     * (duplicate, stale, superseded) and false when the update failed and the event should be redelivered.
+     * It may run later on the debounce flush thread.
+     */
+    public void ingest(PresenceEvent event, Consumer<Boolean> onDone) {
+        if (idempotencyFilter.isSeen(event.getEventId())) {
+            log.debug("Duplicate event ignored locally: eventId={}", event.getEventId());
             eventsIgnoredDuplicate.increment();
+            onDone.accept(true);
             return;
         }
+        debouncer.offer(event, onDone);
+    }
+
+    /**
+     * Process presence event with idempotency and timestamp checks, false when the update failed
+     * Subscribers only see changes of the aggregated status across all of a user's connections
+     */
+    private boolean processPresenceEvent(PresenceEvent event) {
+        UpdateResult result = applyPresenceUpdate(event);
+
+        if (result.code() == SCRIPT_FAILED) {
+            return false;
+        }
+        idempotencyFilter.markSeen(event.getEventId());
+
+        if (result.code() == SCRIPT_DUPLICATE) {
+            log.debug("Duplicate event ignored: eventId={}", event.getEventId());
+            eventsIgnoredDuplicate.increment();
+            return true;
+        }
 
-        // Timestamp-based stale event check
-        if (isEventStale(event)) {
+        if (result.code() == SCRIPT_STALE) {
             log.debug("Stale event ignored: userId={}, eventTimestamp={}", event.getUserId(), event.getTimestamp());
             eventsIgnoredStale.increment();
-            return;
+            return true;
         }
 
-        // Update presence state in Redis
-        updatePresenceState(event);
-
-        // 4. Emit to SSE subscribers
-        Sinks.EmitResult result = sink.tryEmitNext(event);
-        if (result.isFailure()) {
-            log.warn("Failed to emit event to SSE subscribers: {}", result);
+        if (result.code() != SCRIPT_CHANGED && result.code() != SCRIPT_UNCHANGED) {
+            return true;
         }
 
-        // 5. Update metrics
+        // Update metrics
         eventsProcessed.increment();
         meterRegistry
                 .counter(
@@ -157,95 +252,92 @@ public class PresenceService {
                         "status",
                         event.getStatus().name().toUpperCase())
                 .increment();
-    }
 
-    /**
-     * Check if event is new (idempotency)
-     */
-    private boolean isEventNew(String eventId) {
-        String idempotencyKey = "presence:processed:" + eventId;
-
-        try {
-            Boolean isNew = redisTemplate
-                    .opsForValue()
-                    .setIfAbsent(idempotencyKey, "1", Duration.ofMinutes(idempotencyTtlMinutes));
-            return Boolean.TRUE.equals(isNew);
-        } catch (Exception ex) {
-            log.error("Failed to check idempotency for eventId={}", eventId, ex);
-            redisErrors.increment();
+        if (result.code() == SCRIPT_UNCHANGED) {
             return true;
         }
+
+        // The script broadcast the change on the changes channel, PresenceChangeListener fans it out on every instance
+        log.debug(
+                "User status updated: userId={}, status={}, connection={}",
+                event.getUserId(),
+                result.status(),
+                connectionKey(event));
+        return true;
     }
 
     /**
-     * Check if event is stale based on timestamp
+     * Run the presence update script, returns the script result or SCRIPT_FAILED
      */
-    private boolean isEventStale(PresenceEvent event) {
-        String timestampKey = keyPrefix + event.getUserId() + ":ts";
+    private UpdateResult applyPresenceUpdate(PresenceEvent event) {
+        String userKey = keyPrefix + event.getUserId();
+
+        List<String> buckets = idempotencyFilter.bucketKeys();
+
+        List<String> keys = new ArrayList<>(8 + buckets.size());
+        keys.add(buckets.get(0));
+        keys.add(userKey);
+        keys.add(userKey + CONNECTIONS_SUFFIX);
+        keys.add(onlineIndex.shardKey(event.getUserId()));
+        keys.add(onlineIndex.currentHllKey(event.getUserId()));
+        keys.add(analytics.lastSeenKey(event.getUserId()));
+        keys.add(analytics.activityKey(event.getTimestamp()));
+        keys.add(onlineIndex.statsKey(event.getUserId()));
+        keys.addAll(buckets.subList(1, buckets.size()));
 
         try {
-            String currentTsStr = redisTemplate.opsForValue().get(timestampKey);
-            if (currentTsStr != null) {
-                Instant currentTs = Instant.parse(currentTsStr);
-                return event.getTimestamp().isBefore(currentTs);
+            List<?> result = redisTemplate.execute(
+                    presenceUpdateScript,
+                    keys,
+                    event.getUserId(),
+                    event.getStatus().name().toUpperCase(),
+                    String.valueOf(event.getTimestamp().toEpochMilli()),
+                    String.valueOf(ttlSeconds),
+                    String.valueOf(idempotencyFilter.bucketTtlSeconds()),
+                    connectionKey(event),
+                    String.valueOf(onlineIndex.hllTtlSeconds()),
+                    changesChannel,
+                    event.getEventId(),
+                    String.valueOf(idempotencyFilter.bloomCapacity()),
+                    idempotencyFilter.bloomErrorRate(),
+                    idempotencyFilter.sharedFlag(),
+                    analytics.activityOffset(event.getUserId()),
+                    String.valueOf(analytics.activityTtlSeconds()));
+
+            if (result == null || result.size() != 2) {
+                return UpdateResult.FAILED;
             }
-            return false;
+
+            long code = ((Number) result.get(0)).longValue();
+            String status = (String) result.get(1);
+            return new UpdateResult(code, status.isEmpty() ? null : PresenceStatus.valueOf(status));
+
         } catch (Exception ex) {
-            log.error("Failed to check timestamp for userId={}", event.getUserId(), ex);
+            log.error("Failed to update presence state for userId={}", event.getUserId(), ex);
             redisErrors.increment();
-            return false;
+            return UpdateResult.FAILED;
         }
     }
 
     /**
-     * Update presence state in Redis
+     * Connections are tracked by connectionId, deviceId for publishers that do not send one
      */
-    private void updatePresenceState(PresenceEvent event) {
-        String userKey = keyPrefix + event.getUserId();
-        String timestampKey = userKey + ":ts";
-
-        try {
-            if (event.getStatus() == PresenceStatus.OFFLINE) {
-                // Remove from online users
-                redisTemplate.delete(Arrays.asList(userKey, timestampKey));
-                redisTemplate.opsForSet().remove(onlineUsersKey, event.getUserId());
-
-                log.debug("User went offline: userId={}", event.getUserId());
-            } else {
-                // Update status and timestamp
-                redisTemplate
-                        .opsForValue()
-                        .set(userKey, event.getStatus().name().toUpperCase());
-                redisTemplate
-                        .opsForValue()
-                        .set(timestampKey, event.getTimestamp().toString());
-
-                // Set TTL
-                redisTemplate.expire(userKey, Duration.ofSeconds(ttlSeconds));
-                redisTemplate.expire(timestampKey, Duration.ofSeconds(ttlSeconds));
-
-                // Add to online users set
-                redisTemplate.opsForSet().add(onlineUsersKey, event.getUserId());
-                redisTemplate.expire(onlineUsersKey, Duration.ofSeconds(ttlSeconds + 60));
-
-                log.debug("User status updated: userId={}, status={}", event.getUserId(), event.getStatus());
-            }
-        } catch (Exception ex) {
-            log.error("Failed to update presence state for userId={}", event.getUserId(), ex);
-            redisErrors.increment();
+    static String connectionKey(PresenceEvent event) {
+        if (event.getConnectionId() != null && !event.getConnectionId().isBlank()) {
+            return event.getConnectionId();
+        }
+        if (event.getDeviceId() != null && !event.getDeviceId().isBlank()) {
+            return event.getDeviceId();
         }
+        return DEFAULT_CONNECTION;
     }
 
     /**
-     * Get presence status for a user (reactive)
+     * Get presence status for a user (reactive), served from the near-cache when possible
      */
     public Mono<String> getPresence(String userId) {
-        String key = keyPrefix + userId;
-
-        return reactiveRedis
-                .opsForValue()
-                .get(key)
-                .defaultIfEmpty(PresenceStatus.OFFLINE.name().toUpperCase())
+        return nearCache
+                .get(userId, this::fetchPresence)
                 .doOnError(ex -> {
                     log.error("Failed to get presence for userId={}", userId, ex);
                     redisErrors.increment();
@@ -253,13 +345,30 @@ public class PresenceService {
                 .onErrorReturn(PresenceStatus.OFFLINE.name().toUpperCase());
     }
 
+    private Mono<String> fetchPresence(String userId) {
+        return reactiveRedis
+                .<String, String>opsForHash()
+                .get(keyPrefix + userId, FIELD_STATUS)
+                .defaultIfEmpty(PresenceStatus.OFFLINE.name().toUpperCase());
+    }
+
     /**
-     * Get online users count
+     * Get presence status for many users, HGETs are pipelined on the shared connection
+     * Results keep the order of the requested ids
+     */
+    public Flux<PresenceResponse> getPresences(Collection<String> userIds) {
+        return Flux.fromIterable(userIds)
+                .flatMapSequential(
+                        userId -> getPresence(userId).map(status -> new PresenceResponse(userId, status)),
+                        batchConcurrency);
+    }
+
+    /**
+     * Get online users count, approximate (HyperLogLog over the presence ttl window)
      */
     public Mono<Long> getOnlineUsersCount() {
-        return reactiveRedis
-                .opsForSet()
-                .size(onlineUsersKey)
+        return onlineIndex
+                .approximateCount()
                 .defaultIfEmpty(0L)
                 .doOnError(ex -> {
                     log.error("Failed to get online users count", ex);
@@ -269,31 +378,70 @@ public class PresenceService {
     }
 
     /**
-     * Subscribe to presence events (for SSE)
+     * Subscribe to presence events of the given users (for SSE)
      */
-    public Flux<PresenceEvent> subscribeToPresence() {
-        return sink.asFlux()
-                .doOnSubscribe(sub -> log.debug("New SSE subscriber connected"))
+    public Flux<PresenceEvent> subscribeToPresence(Collection<String> userIds) {
+        return subscriptions
+                .subscribe(userIds)
+                .doOnSubscribe(sub -> log.debug("New SSE subscriber connected for {} users", userIds.size()))
                 .doOnCancel(() -> log.debug("SSE subscriber disconnected"));
     }
 
     /**
-     * Scheduled task to update online users count metric
+     * Get users per aggregated status and their total, one HGETALL of the counters
+     */
+    public Mono<PresenceStatsResponse> getStats() {
+        return onlineIndex
+                .statusCounts()
+                .map(counts -> {
+                    Map<String, Long> byStatus = new LinkedHashMap<>();
+                    counts.forEach((status, count) -> byStatus.put(status.name(), count));
+                    return new PresenceStatsResponse(sumValues(counts.values()), byStatus);
+                })
+                .doOnError(ex -> {
+                    log.error("Failed to get presence stats", ex);
+                    redisErrors.increment();
+                });
+    }
+
+    /**
+     * Scheduled task to refresh the per-status gauges from the counters, no scan of the online index
      */
     @Scheduled(fixedDelayString = "${presence.metrics.update-interval-seconds:30}000")
     public void updateOnlineUsersMetric() {
-        getOnlineUsersCount()
-                .subscribe(
-                        count -> {
-                            onlineUsersCount.set(count);
-                            log.debug("Updated online users count: {}", count);
-                        },
-                        ex -> log.error("Failed to update online users metric", ex));
+        try {
+            Map<PresenceStatus, Long> counts = onlineIndex.statusCounts().block(METRICS_TIMEOUT);
+            if (counts == null) {
+                return;
+            }
+            counts.forEach((status, count) -> statusCounts.get(status).set(count));
+            log.debug("Updated online users count: {}", counts);
+        } catch (Exception ex) {
+            log.error("Failed to update online users metric", ex);
+            redisErrors.increment();
+        }
+    }
+
+    private static double sumCounts(Map<PresenceStatus, AtomicLong> counts) {
+        return counts.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    private static long sumValues(Collection<Long> counts) {
+        return counts.stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Apply coalesced events whose window or grace period is over
+     */
+    @Scheduled(fixedDelayString = "${presence.debounce.flush-interval-ms:250}")
+    public void flushDebouncedEvents() {
+        debouncer.flushExpired();
     }
 
     @PreDestroy
     public void cleanup() {
         log.info("Cleaning up PresenceService resources");
-        sink.tryEmitComplete();
+        debouncer.flushAll();
+        subscriptions.completeAll();
     }
 }
@@ -0,0 +1,337 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.config.RedisConfig;
+import com.chatwolf.presence.dto.PresenceEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.ClaimedMessages;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Redis Streams ingestion, replaces the pub/sub subscription when presence.ingestion.mode=stream
+ * Replicas share one consumer group, so every entry is processed by exactly one instance and survives restarts.
+ * Entries are acknowledged once their update reached Redis, which may be after a debounce delay. Entries whose
+ * update failed stay pending and are redelivered by XAUTOCLAIM, as are entries stuck at a dead consumer.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "presence.ingestion.mode", havingValue = "stream")
+public class PresenceStreamConsumer {
+
+    private static final String EVENT_FIELD = "event";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final PresenceService presenceService;
+
+    @Value("${presence.stream.key}")
+    private String streamKey;
+
+    @Value("${presence.stream.group}")
+    private String group;
+
+    @Value("${presence.stream.consumer-name}")
+    private String consumerName;
+
+    @Value("${presence.stream.batch-size:500}")
+    private int batchSize;
+
+    @Value("${presence.stream.block-ms:1000}")
+    private long blockMs;
+
+    @Value("${presence.stream.claim-min-idle-ms:30000}")
+    private long claimMinIdleMs;
+
+    // Entries ready to be acknowledged, filled by processing and by the debounce flush
+    private final Queue<RecordId> pendingAcks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    // Metrics
+    private final Counter entriesProcessed;
+    private final Counter entriesFailed;
+    private final Counter entriesClaimed;
+    private final Counter entriesInvalid;
+    private final DistributionSummary batchSizes;
+
+    public PresenceStreamConsumer(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            PresenceService presenceService,
+            MeterRegistry meterRegistry) {
+
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.presenceService = presenceService;
+
+        this.entriesProcessed = Counter.builder("presence.stream.entries.processed")
+                .description("Stream entries processed and acknowledged")
+                .register(meterRegistry);
+
+        this.entriesFailed = Counter.builder("presence.stream.entries.failed")
+                .description("Stream entries left pending for redelivery because their update failed")
+                .register(meterRegistry);
+
+        this.entriesClaimed = Counter.builder("presence.stream.entries.claimed")
+                .description("Stream entries taken over from idle consumers")
+                .register(meterRegistry);
+
+        this.entriesInvalid = Counter.builder("presence.stream.entries.invalid")
+                .description("Stream entries acknowledged without processing because they could not be parsed")
+                .register(meterRegistry);
+
+        this.batchSizes = DistributionSummary.builder("presence.stream.batch.size")
+                .description("Entries returned per XREADGROUP call")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // A blocking read that reaches the command timeout fails instead of returning empty
+        if (blockMs > RedisConfig.COMMAND_TIMEOUT.toMillis() / 2) {
+            throw new IllegalStateException("presence.stream.block-ms must be at most half the Redis command timeout");
+        }
+        createGroupIfMissing();
+
+        running = true;
+        worker = Thread.ofPlatform().name("presence-stream-" + consumerName).daemon().start(this::consumeLoop);
+        log.info("Consuming presence stream {} as {}/{}", streamKey, group, consumerName);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(blockMs + 1000);
+        }
+    }
+
+    /**
+     * Take over entries left pending by consumers that died or stalled
+     */
+    @Scheduled(fixedDelayString = "${presence.stream.claim-interval-ms:10000}")
+    public void claimIdleEntries() {
+        if (!running) {
+            return;
+        }
+
+        try {
+            String cursor = "0-0";
+            do {
+                AutoClaimResult claimed = autoClaim(cursor);
+                if (!claimed.records().isEmpty()) {
+                    entriesClaimed.increment(claimed.records().size());
+                    log.info("Claimed {} idle presence stream entries", claimed.records().size());
+                    process(claimed.records());
+                }
+                cursor = claimed.nextCursor();
+            } while (running && !"0-0".equals(cursor));
+            acknowledgePending();
+        } catch (Exception ex) {
+            log.error("Failed to claim idle presence stream entries", ex);
+        }
+    }
+
+    private void consumeLoop() {
+        // Entries delivered to this consumer name before a restart but never acknowledged
+        ReadOffset offset = ReadOffset.from("0");
+        boolean drainingBacklog = true;
+
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> records = redisTemplate
+                        .opsForStream()
+                        .read(
+                                Consumer.from(group, consumerName),
+                                StreamReadOptions.empty()
+                                        .count(batchSize)
+                                        .block(Duration.ofMillis(blockMs)),
+                                StreamOffset.create(streamKey, offset));
+
+                if (records == null || records.isEmpty()) {
+                    // Own backlog is drained, switch to new entries
+                    offset = ReadOffset.lastConsumed();
+                    drainingBacklog = false;
+                } else {
+                    batchSizes.record(records.size());
+                    process(toEntries(records));
+
+                    // Page through the backlog, failed entries stay pending and are not read again here
+                    if (drainingBacklog) {
+                        offset = ReadOffset.from(records.get(records.size() - 1).getId());
+                    }
+                }
+                acknowledgePending();
+
+            } catch (Exception ex) {
+                log.error("Failed to read presence stream", ex);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void process(List<Entry> entries) {
+        for (Entry entry : entries) {
+            PresenceEvent event;
+            try {
+                event = entry.payload() != null ? objectMapper.readValue(entry.payload(), PresenceEvent.class) : null;
+            } catch (Exception ex) {
+                log.error("Invalid presence stream entry {}: {}", entry.id(), ex.getMessage());
+                event = null;
+            }
+
+            // Unparseable entries would fail the same way on every redelivery
+            if (event == null) {
+                entriesInvalid.increment();
+                pendingAcks.add(entry.id());
+                continue;
+            }
+
+            presenceService.ingest(event, applied -> {
+                if (applied) {
+                    pendingAcks.add(entry.id());
+                } else {
+                    entriesFailed.increment();
+                }
+            });
+        }
+    }
+
+    private void acknowledgePending() {
+        List<RecordId> ids = new ArrayList<>();
+        for (RecordId id = pendingAcks.poll(); id != null; id = pendingAcks.poll()) {
+            ids.add(id);
+        }
+
+        if (!ids.isEmpty()) {
+            try {
+                redisTemplate.opsForStream().acknowledge(streamKey, group, ids.toArray(RecordId[]::new));
+                entriesProcessed.increment(ids.size());
+            } catch (RuntimeException ex) {
+                // Retried with the next batch, until then the entries may be redelivered, which is harmless
+                pendingAcks.addAll(ids);
+                throw ex;
+            }
+        }
+    }
+
+    private List<Entry> toEntries(List<MapRecord<String, Object, Object>> records) {
+        List<Entry> entries = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            Object payload = record.getValue().get(EVENT_FIELD);
+            entries.add(new Entry(record.getId(), payload != null ? payload.toString() : null));
+        }
+        return entries;
+    }
+
+    /**
+     * XAUTOCLAIM is not exposed by StreamOperations, issued through the native Lettuce connection
+     */
+    @SuppressWarnings("unchecked")
+    private AutoClaimResult autoClaim(String cursor) {
+        ClaimedMessages<byte[], byte[]> claimed = redisTemplate.execute(
+                (RedisCallback<ClaimedMessages<byte[], byte[]>>) connection -> {
+                    RedisClusterAsyncCommands<byte[], byte[]> commands =
+                            (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+
+                    XAutoClaimArgs<byte[]> args = XAutoClaimArgs.Builder.xautoclaim(
+                                    io.lettuce.core.Consumer.from(bytes(group), bytes(consumerName)),
+                                    Duration.ofMillis(claimMinIdleMs),
+                                    cursor)
+                            .count(batchSize);
+
+                    return LettuceFutures.awaitOrCancel(
+                            commands.xautoclaim(bytes(streamKey), args), blockMs, TimeUnit.MILLISECONDS);
+                });
+
+        if (claimed == null) {
+            return new AutoClaimResult("0-0", List.of());
+        }
+
+        List<Entry> entries = new ArrayList<>(claimed.getMessages().size());
+        for (StreamMessage<byte[], byte[]> message : claimed.getMessages()) {
+            byte[] payload = message.getBody() != null ? findEventField(message.getBody()) : null;
+            entries.add(new Entry(
+                    RecordId.of(message.getId()),
+                    payload != null ? new String(payload, StandardCharsets.UTF_8) : null));
+        }
+
+        return new AutoClaimResult(claimed.getId(), entries);
+    }
+
+    /**
+     * Body keys are byte arrays, compared by content
+     */
+    private byte[] findEventField(Map<byte[], byte[]> body) {
+        byte[] field = bytes(EVENT_FIELD);
+        for (Map.Entry<byte[], byte[]> entry : body.entrySet()) {
+            if (Arrays.equals(entry.getKey(), field)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void createGroupIfMissing() {
+        try {
+            // MKSTREAM, on a fresh Redis nothing has been published to the stream yet
+            redisTemplate.execute((RedisCallback<String>) connection -> connection
+                    .streamCommands()
+                    .xGroupCreate(bytes(streamKey), group, ReadOffset.latest(), true));
+            log.info("Created consumer group {} on presence stream {}", group, streamKey);
+        } catch (RuntimeException ex) {
+            String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+            if (message == null || !message.contains("BUSYGROUP")) {
+                throw ex;
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Entry(RecordId id, String payload) {}
+
+    private record AutoClaimResult(String nextCursor, List<Entry> records) {}
+}
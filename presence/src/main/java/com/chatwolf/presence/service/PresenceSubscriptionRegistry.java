@@ -0,0 +1,275 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.dto.PresenceEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Routes presence events only to the SSE streams interested in the user
+ * Index is userId -> subscribers, so an event costs O(interested streams) instead of O(all streams)
+ *
+ * Each stream has its own bounded buffer holding at most one pending event per user, newer events replace
+ * undelivered ones. Streams that stop consuming for too long or keep overflowing are disconnected.
+ */
+@Slf4j
+@Service
+public class PresenceSubscriptionRegistry {
+
+    private final Map<String, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final int bufferSize;
+    private final long stallTimeoutNanos;
+    private final long maxDrops;
+
+    // Metrics
+    private final Counter eventsDropped;
+    private final Counter eventsCoalesced;
+    private final Counter slowConsumersDisconnected;
+    private final DistributionSummary droppedPerSubscriber;
+    private final DistributionSummary coalescedPerSubscriber;
+
+    public PresenceSubscriptionRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${presence.sse.subscriber-buffer-size:256}") int bufferSize,
+            @Value("${presence.sse.stall-timeout-seconds:30}") long stallTimeoutSeconds,
+            @Value("${presence.sse.max-dropped-events:1000}") long maxDrops) {
+
+        this.bufferSize = bufferSize;
+        this.stallTimeoutNanos = Duration.ofSeconds(stallTimeoutSeconds).toNanos();
+        this.maxDrops = maxDrops;
+
+        Gauge.builder("presence.sse.subscribers", subscribers, Set::size)
+                .description("Current number of SSE presence subscribers")
+                .register(meterRegistry);
+
+        Gauge.builder("presence.sse.watched.users", subscribersByUser, Map::size)
+                .description("Number of distinct users watched by at least one SSE subscriber")
+                .register(meterRegistry);
+
+        this.eventsDropped = Counter.builder("presence.sse.events.dropped")
+                .description("Presence events dropped because a subscriber buffer was full")
+                .register(meterRegistry);
+
+        this.eventsCoalesced = Counter.builder("presence.sse.events.coalesced")
+                .description("Undelivered presence events replaced by a newer event for the same user")
+                .register(meterRegistry);
+
+        this.slowConsumersDisconnected = Counter.builder("presence.sse.subscribers.disconnected.slow")
+                .description("SSE subscribers disconnected for not keeping up")
+                .register(meterRegistry);
+
+        this.droppedPerSubscriber = DistributionSummary.builder("presence.sse.subscriber.dropped")
+                .description("Dropped presence events per SSE subscriber, recorded on disconnect")
+                .register(meterRegistry);
+
+        this.coalescedPerSubscriber = DistributionSummary.builder("presence.sse.subscriber.coalesced")
+                .description("Coalesced presence events per SSE subscriber, recorded on disconnect")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stream of presence events for the given users, registered on subscribe and removed on termination
+     */
+    public Flux<PresenceEvent> subscribe(Collection<String> userIds) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(Set.copyOf(userIds));
+            return Flux.<PresenceEvent>create(
+                            sink -> {
+                                subscriber.attach(sink);
+                                register(subscriber);
+                            },
+                            FluxSink.OverflowStrategy.ERROR)
+                    .doFinally(signal -> unregister(subscriber));
+        });
+    }
+
+    /**
+     * Deliver an event to every stream watching its user
+     */
+    public void publish(PresenceEvent event) {
+        Set<Subscriber> watching = subscribersByUser.get(event.getUserId());
+        if (watching == null) {
+            return;
+        }
+
+        for (Subscriber subscriber : watching) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Disconnect streams that have not drained their buffer for too long, even if no new events arrive
+     */
+    @Scheduled(fixedDelayString = "${presence.sse.stall-check-interval-ms:5000}")
+    public void disconnectStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now)) {
+                subscriber.disconnectSlow("stalled");
+            }
+        }
+    }
+
+    /**
+     * Complete every stream, used on shutdown
+     */
+    public void completeAll() {
+        subscribers.forEach(Subscriber::complete);
+    }
+
+    private void register(Subscriber subscriber) {
+        for (String userId : subscriber.userIds) {
+            subscribersByUser
+                    .computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet())
+                    .add(subscriber);
+        }
+        subscribers.add(subscriber);
+        log.debug("SSE subscriber registered for {} users", subscriber.userIds.size());
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+
+        for (String userId : subscriber.userIds) {
+            subscribersByUser.computeIfPresent(userId, (key, watching) -> {
+                watching.remove(subscriber);
+                return watching.isEmpty() ? null : watching;
+            });
+        }
+
+        droppedPerSubscriber.record(subscriber.dropped);
+        coalescedPerSubscriber.record(subscriber.coalesced);
+        log.debug(
+                "SSE subscriber removed - dropped={}, coalesced={}", subscriber.dropped, subscriber.coalesced);
+    }
+
+    /**
+     * One SSE stream, identity-compared since the interest set can be large
+     * All state is guarded by the instance lock, events arrive from several listener threads
+     */
+    private final class Subscriber {
+
+        private final Set<String> userIds;
+        private final LinkedHashMap<String, PresenceEvent> pending = new LinkedHashMap<>();
+
+        private FluxSink<PresenceEvent> sink;
+        private long stalledSince = -1;
+        private long dropped;
+        private long coalesced;
+        private boolean terminated;
+
+        // Set while drain() is emitting, FluxSink calls onRequest synchronously from inside sink.next
+        private boolean draining;
+
+        Subscriber(Set<String> userIds) {
+            this.userIds = userIds;
+        }
+
+        synchronized void attach(FluxSink<PresenceEvent> sink) {
+            this.sink = sink;
+            sink.onRequest(requested -> onRequest());
+        }
+
+        synchronized void onRequest() {
+            drain();
+        }
+
+        synchronized void offer(PresenceEvent event) {
+            if (terminated || sink == null) {
+                return;
+            }
+
+            // Only the latest status per user matters, replace an undelivered one
+            if (pending.remove(event.getUserId()) != null) {
+                coalesced++;
+                eventsCoalesced.increment();
+            } else if (pending.size() >= bufferSize) {
+                Iterator<PresenceEvent> oldest = pending.values().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped++;
+                eventsDropped.increment();
+            }
+            pending.put(event.getUserId(), event);
+
+            drain();
+
+            if (dropped > maxDrops) {
+                disconnectSlow("overflowing");
+            }
+        }
+
+        synchronized boolean isStalled(long now) {
+            return !terminated && stalledSince >= 0 && now - stalledSince > stallTimeoutNanos;
+        }
+
+        synchronized void disconnectSlow(String reason) {
+            if (terminated) {
+                return;
+            }
+            log.warn(
+                    "Disconnecting slow SSE subscriber ({}) - pending={}, dropped={}, coalesced={}",
+                    reason,
+                    pending.size(),
+                    dropped,
+                    coalesced);
+            slowConsumersDisconnected.increment();
+            complete();
+        }
+
+        synchronized void complete() {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            pending.clear();
+            if (sink != null) {
+                sink.complete();
+            }
+        }
+
+        private void drain() {
+            if (terminated || sink == null || draining) {
+                // A re-entrant call is covered by the outer loop, it re-reads pending and demand on every pass
+                return;
+            }
+
+            draining = true;
+            try {
+                while (!terminated && !pending.isEmpty() && sink.requestedFromDownstream() > 0) {
+                    // No iterator is held across sink.next, it may re-enter and change pending
+                    Iterator<PresenceEvent> oldest = pending.values().iterator();
+                    PresenceEvent next = oldest.next();
+                    oldest.remove();
+                    sink.next(next);
+                }
+            } finally {
+                draining = false;
+            }
+
+            stalledSince = pending.isEmpty() ? -1 : (stalledSince >= 0 ? stalledSince : System.nanoTime());
+        }
+    }
+}
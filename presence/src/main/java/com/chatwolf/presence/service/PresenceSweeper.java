@@ -0,0 +1,136 @@
+package com.chatwolf.presence.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Expires users whose connections all stopped heartbeating, e.g. after a socket node died without OFFLINE events
+ * Walks the online index shards in batches, the sweep script publishes a synthetic OFFLINE on the changes channel.
+ * Only the replica holding the leader lease sweeps.
+ */
+@Slf4j
+@Service
+public class PresenceSweeper {
+
+    private final StringRedisTemplate redisTemplate;
+    private final OnlineIndexService onlineIndex;
+    private final RedisScript<List> sweepScript;
+    private final RedisScript<Long> leaderScript;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicBoolean leader = new AtomicBoolean(false);
+
+    @Value("${presence.redis.key-prefix}")
+    private String keyPrefix;
+
+    @Value("${presence.redis.ttl-seconds}")
+    private long ttlSeconds;
+
+    @Value("${presence.redis.changes-channel}")
+    private String changesChannel;
+
+    @Value("${presence.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${presence.sweeper.leader-key:presence:sweeper:leader}")
+    private String leaderKey;
+
+    @Value("${presence.sweeper.lease-ms:15000}")
+    private long leaseMs;
+
+    private final Counter usersExpired;
+
+    public PresenceSweeper(
+            StringRedisTemplate redisTemplate,
+            OnlineIndexService onlineIndex,
+            @Qualifier("presenceSweepScript") RedisScript<List> sweepScript,
+            @Qualifier("presenceLeaderScript") RedisScript<Long> leaderScript,
+            MeterRegistry meterRegistry) {
+
+        this.redisTemplate = redisTemplate;
+        this.onlineIndex = onlineIndex;
+        this.sweepScript = sweepScript;
+        this.leaderScript = leaderScript;
+
+        this.usersExpired = Counter.builder("presence.sweeper.users.expired")
+                .description("Users marked OFFLINE by the sweeper after missing their heartbeats")
+                .register(meterRegistry);
+
+        Gauge.builder("presence.sweeper.leader", leader, held -> held.get() ? 1 : 0)
+                .description("1 when this instance holds the sweeper lease")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${presence.sweeper.interval-ms:5000}")
+    public void sweep() {
+        try {
+            if (!acquireLease()) {
+                return;
+            }
+
+            long cutoff = System.currentTimeMillis() - ttlSeconds * 1000;
+            String sweepId = "sweep-" + UUID.randomUUID();
+            long expired = 0;
+
+            List<String> shardKeys = onlineIndex.shardKeys();
+            for (int shard = 0; shard < shardKeys.size(); shard++) {
+                expired += sweepShard(shardKeys.get(shard), onlineIndex.statsKeys().get(shard), cutoff, sweepId);
+            }
+
+            if (expired > 0) {
+                usersExpired.increment(expired);
+                log.info("Presence sweep expired {} users past the heartbeat deadline", expired);
+            }
+        } catch (Exception ex) {
+            log.error("Presence sweep failed", ex);
+        }
+    }
+
+    /**
+     * Repeat batches until the shard has no member older than the cutoff, returns the users expired
+     */
+    private long sweepShard(String shardKey, String statsKey, long cutoff, String sweepId) {
+        long expired = 0;
+        long examined;
+        do {
+            List<?> result = redisTemplate.execute(
+                    sweepScript,
+                    List.of(shardKey),
+                    String.valueOf(cutoff),
+                    String.valueOf(batchSize),
+                    keyPrefix,
+                    changesChannel,
+                    sweepId,
+                    statsKey,
+                    String.valueOf(ttlSeconds * 2));
+
+            if (result == null || result.size() != 2) {
+                break;
+            }
+            examined = ((Number) result.get(0)).longValue();
+            expired += ((Number) result.get(1)).longValue();
+        } while (examined == batchSize);
+        return expired;
+    }
+
+    private boolean acquireLease() {
+        Long result = redisTemplate.execute(leaderScript, List.of(leaderKey), instanceId, String.valueOf(leaseMs));
+        boolean held = result != null && result == 1L;
+
+        if (held != leader.getAndSet(held)) {
+            log.info("Presence sweeper leadership {}", held ? "acquired" : "lost");
+        }
+        return held;
+    }
+}
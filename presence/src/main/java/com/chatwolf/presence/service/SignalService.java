@@ -0,0 +1,166 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.constant.SignalType;
+import com.chatwolf.presence.dto.SignalEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Ephemeral per-conversation signals such as typing indicators, never stored anywhere
+ * Signals are throttled per user and conversation, broadcast to every instance over Redis pub/sub and fanned out
+ * to local SSE streams. Each signal carries expiresAt, clients drop it unless a newer one arrives before then.
+ */
+@Slf4j
+@Service
+public class SignalService {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer redisContainer;
+    private final SignalSubscriptionRegistry subscriptions;
+
+    // userId:conversationId -> when its last live signal was accepted and whether a STOPPED followed it
+    private final Cache<String, Throttle> recentSignals;
+    private final long throttleMs;
+    private final Duration signalTtl;
+
+    private record Throttle(long liveAcceptedAt, boolean stopped) {}
+
+    @Value("${presence.signals.channel:presence:signals}")
+    private String signalsChannel;
+
+    // Metrics
+    private final Counter signalsPublished;
+    private final Counter signalsThrottled;
+    private final Counter signalErrors;
+
+    public SignalService(
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            RedisMessageListenerContainer redisContainer,
+            SignalSubscriptionRegistry subscriptions,
+            MeterRegistry meterRegistry,
+            @Value("${presence.signals.throttle-ms:1000}") long throttleMs,
+            @Value("${presence.signals.throttle-max-size:500000}") long throttleMaxSize,
+            @Value("${presence.signals.ttl-ms:5000}") long ttlMs) {
+
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisContainer = redisContainer;
+        this.subscriptions = subscriptions;
+        this.throttleMs = throttleMs;
+        this.signalTtl = Duration.ofMillis(ttlMs);
+
+        // Kept while a live signal may still be shown, so its STOPPED is let through until then
+        this.recentSignals = Caffeine.newBuilder()
+                .maximumSize(throttleMaxSize)
+                .expireAfterWrite(Duration.ofMillis(Math.max(throttleMs, ttlMs)))
+                .build();
+
+        this.signalsPublished = Counter.builder("presence.signals.published")
+                .description("Ephemeral signals accepted and broadcast")
+                .register(meterRegistry);
+
+        this.signalsThrottled = Counter.builder("presence.signals.throttled")
+                .description("Ephemeral signals dropped by the per user and conversation throttle")
+                .register(meterRegistry);
+
+        this.signalErrors = Counter.builder("presence.signals.errors")
+                .description("Ephemeral signals that failed to broadcast or parse")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void initSignalsSubscription() {
+        MessageListener listener = (message, pattern) -> {
+            try {
+                subscriptions.publish(objectMapper.readValue(message.getBody(), SignalEvent.class));
+            } catch (Exception ex) {
+                log.error("Failed to deliver signal: {}", ex.getMessage());
+                signalErrors.increment();
+            }
+        };
+
+        redisContainer.addMessageListener(listener, new ChannelTopic(signalsChannel));
+        log.info("Subscribed to signals channel: {}", signalsChannel);
+    }
+
+    /**
+     * Broadcast a signal unless the user already sent one to the conversation within the throttle window
+     * Live signals (TYPING, RECORDING_AUDIO) go out at most once per window. STOPPED goes out once after each
+     * accepted live signal and does not reset the window, so a user sends at most one of each per window.
+     * Returns false when the signal was throttled.
+     */
+    public boolean send(SignalEvent signal) {
+        String throttleKey = signal.getUserId() + ":" + signal.getConversationId();
+        boolean stopped = signal.getType() == SignalType.STOPPED;
+        long now = System.currentTimeMillis();
+        boolean[] accepted = {false};
+
+        recentSignals.asMap().compute(throttleKey, (key, last) -> {
+            if (stopped) {
+                // Nothing shown to stop, or already stopped
+                if (last == null || last.stopped()) {
+                    return last;
+                }
+                accepted[0] = true;
+                return new Throttle(last.liveAcceptedAt(), true);
+            }
+            if (last != null && now - last.liveAcceptedAt() < throttleMs) {
+                return last;
+            }
+            accepted[0] = true;
+            return new Throttle(now, false);
+        });
+
+        if (!accepted[0]) {
+            signalsThrottled.increment();
+            return false;
+        }
+
+        Instant now = Instant.now();
+        signal.setTimestamp(now);
+        signal.setExpiresAt(signal.getType() == SignalType.STOPPED ? now : now.plus(signalTtl));
+
+        try {
+            redisTemplate.convertAndSend(signalsChannel, objectMapper.writeValueAsString(signal));
+            signalsPublished.increment();
+        } catch (Exception ex) {
+            log.error("Failed to broadcast signal for conversationId={}", signal.getConversationId(), ex);
+            signalErrors.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Subscribe to signals of the given conversations (for SSE)
+     */
+    public Flux<SignalEvent> subscribe(Collection<String> conversationIds) {
+        return subscriptions
+                .subscribe(conversationIds)
+                .doOnSubscribe(
+                        sub -> log.debug("New SSE signal subscriber for {} conversations", conversationIds.size()))
+                .doOnCancel(() -> log.debug("SSE signal subscriber disconnected"));
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        subscriptions.completeAll();
+    }
+}
@@ -0,0 +1,93 @@
+package com.chatwolf.presence.service;
+
+import com.chatwolf.presence.dto.SignalEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Routes ephemeral signals only to the SSE streams watching the conversation
+ * Signals are lossy by design: a stream that is not keeping up only gets the latest signal, older ones are dropped.
+ */
+@Slf4j
+@Service
+public class SignalSubscriptionRegistry {
+
+    private final Map<String, Set<FluxSink<SignalEvent>>> sinksByConversation = new ConcurrentHashMap<>();
+    private final Set<FluxSink<SignalEvent>> sinks = ConcurrentHashMap.newKeySet();
+
+    public SignalSubscriptionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("presence.signals.sse.subscribers", sinks, Set::size)
+                .description("Current number of SSE signal subscribers")
+                .register(meterRegistry);
+
+        Gauge.builder("presence.signals.sse.watched.conversations", sinksByConversation, Map::size)
+                .description("Number of distinct conversations watched by at least one SSE subscriber")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stream of signals of the given conversations, registered on subscribe and removed on termination
+     */
+    public Flux<SignalEvent> subscribe(Collection<String> conversationIds) {
+        Set<String> watched = Set.copyOf(conversationIds);
+        return Flux.create(
+                sink -> {
+                    register(sink, watched);
+                    sink.onDispose(() -> unregister(sink, watched));
+                },
+                FluxSink.OverflowStrategy.LATEST);
+    }
+
+    /**
+     * Deliver a signal to every stream watching its conversation
+     */
+    public void publish(SignalEvent signal) {
+        Set<FluxSink<SignalEvent>> watching = sinksByConversation.get(signal.getConversationId());
+        if (watching == null) {
+            return;
+        }
+
+        for (FluxSink<SignalEvent> sink : watching) {
+            sink.next(signal);
+        }
+    }
+
+    /**
+     * Complete every stream, used on shutdown
+     */
+    public void completeAll() {
+        sinks.forEach(FluxSink::complete);
+    }
+
+    private void register(FluxSink<SignalEvent> sink, Set<String> conversationIds) {
+        for (String conversationId : conversationIds) {
+            sinksByConversation
+                    .computeIfAbsent(conversationId, key -> ConcurrentHashMap.newKeySet())
+                    .add(sink);
+        }
+        sinks.add(sink);
+        log.debug("SSE signal subscriber registered for {} conversations", conversationIds.size());
+    }
+
+    private void unregister(FluxSink<SignalEvent> sink, Set<String> conversationIds) {
+        if (!sinks.remove(sink)) {
+            return;
+        }
+
+        for (String conversationId : conversationIds) {
+            sinksByConversation.computeIfPresent(conversationId, (key, watching) -> {
+                watching.remove(sink);
+                return watching.isEmpty() ? null : watching;
+            });
+        }
+        log.debug("SSE signal subscriber removed");
+    }
+}
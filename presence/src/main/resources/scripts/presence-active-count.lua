@@ -0,0 +1,20 @@
+-- Count active users of one or more daily activity bitmaps
+--
+-- KEYS[1] temporary destination for the union, deleted before returning
+-- KEYS[2..] daily activity bitmaps presence:active:{yyyyMMdd}
+--
+-- Returns the number of distinct users set in any of the bitmaps
+
+if #KEYS == 2 then
+    return redis.call('BITCOUNT', KEYS[2])
+end
+
+local days = {}
+for i = 2, #KEYS do
+    days[#days + 1] = KEYS[i]
+end
+
+redis.call('BITOP', 'OR', KEYS[1], unpack(days))
+local count = redis.call('BITCOUNT', KEYS[1])
+redis.call('DEL', KEYS[1])
+return count
@@ -0,0 +1,19 @@
+-- Acquire or renew a leader lease
+--
+-- KEYS[1] lease key
+--
+-- ARGV[1] instance id
+-- ARGV[2] lease duration in millis
+--
+-- Returns 1 when the caller holds the lease
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return 1
+end
+
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return 1
+end
+
+return 0
@@ -0,0 +1,41 @@
+-- Move one legacy presence entry (two string keys) into the hash record
+--
+-- A migrated ONLINE or AWAY user is added to the online index and its status counter, like a live update would,
+-- so the sweeper later expires it and takes it off the counter again
+--
+-- KEYS[1] presence record hash  presence:u:{userId}
+-- KEYS[2] legacy status key     presence:user:{userId}
+-- KEYS[3] legacy timestamp key  presence:user:{userId}:ts
+-- KEYS[4] online index shard    presence:online:users:{shard}
+-- KEYS[5] status counters hash  presence:online:users:stats:{shard}
+--
+-- ARGV[1] status
+-- ARGV[2] timestamp in epoch millis, 0 when unknown
+-- ARGV[3] remaining ttl in millis
+-- ARGV[4] userId
+--
+-- Returns 1 when migrated, 0 when a newer record already existed
+
+local migrated = 0
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    redis.call('HSET', KEYS[1], 's', ARGV[1], 'ts', ARGV[2])
+
+    if ARGV[1] == 'ONLINE' or ARGV[1] == 'AWAY' then
+        local score = tonumber(ARGV[2]) or 0
+        if score <= 0 then
+            local now = redis.call('TIME')
+            score = tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000)
+        end
+        redis.call('ZADD', KEYS[4], score, ARGV[4])
+        redis.call('HINCRBY', KEYS[5], ARGV[1], 1)
+        -- No ttl, like a live counted record the sweeper expires it and takes it off the counter
+    else
+        redis.call('PEXPIRE', KEYS[1], ARGV[3])
+    end
+    migrated = 1
+end
+
+redis.call('DEL', KEYS[2], KEYS[3])
+
+return migrated
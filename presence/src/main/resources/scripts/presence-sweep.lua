@@ -0,0 +1,77 @@
+-- Expire users of one online index shard whose connections all stopped heartbeating
+--
+-- Record and connection keys are derived from the userIds found in the shard, so this script assumes a
+-- standalone Redis (as configured in RedisConfig) rather than a cluster.
+--
+-- KEYS[1] online index shard     presence:online:users:{shard}
+--
+-- ARGV[1] cutoff in epoch millis, connections last seen before it are expired
+-- ARGV[2] maximum users to expire in this call
+-- ARGV[3] presence record key prefix
+-- ARGV[4] presence changes channel
+-- ARGV[5] event id prefix for the synthetic OFFLINE events
+-- ARGV[6] status counters hash of the shard  presence:online:users:stats:{shard}
+-- ARGV[7] record ttl in seconds once the user is OFFLINE
+--
+-- Returns {users examined, users expired}, callers repeat while examined equals ARGV[2]
+
+local cutoff = '(' .. ARGV[1]
+local candidates = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', cutoff, 'LIMIT', 0, tonumber(ARGV[2]))
+local expiredUsers = 0
+
+for _, userId in ipairs(candidates) do
+    local record = ARGV[3] .. userId
+    local connections = record .. ':conns'
+
+    local expired = redis.call('ZRANGEBYSCORE', connections, '-inf', cutoff)
+    if #expired > 0 then
+        local fields = {}
+        for i, member in ipairs(expired) do
+            fields[i] = 'c:' .. member
+        end
+        redis.call('HDEL', record, unpack(fields))
+        redis.call('ZREMRANGEBYSCORE', connections, '-inf', cutoff)
+    end
+
+    -- A live connection left means the shard score lagged behind, move the user to its latest heartbeat
+    local live = false
+    local members = redis.call('ZRANGE', connections, 0, -1)
+    for _, member in ipairs(members) do
+        local status = redis.call('HGET', record, 'c:' .. member)
+        if status and status ~= 'OFFLINE' then
+            live = true
+            break
+        end
+    end
+
+    if live then
+        local latest = redis.call('ZRANGE', connections, -1, -1, 'WITHSCORES')
+        redis.call('ZADD', KEYS[1], latest[2], userId)
+    else
+        redis.call('ZREM', KEYS[1], userId)
+        expiredUsers = expiredUsers + 1
+
+        local previous = redis.call('HGET', record, 's')
+        if redis.call('EXISTS', record) == 1 then
+            redis.call('HSET', record, 's', 'OFFLINE')
+            -- Counted records carry no ttl, the sweep is what lets them expire
+            redis.call('EXPIRE', record, ARGV[7])
+        end
+
+        if previous and previous ~= 'OFFLINE' then
+            redis.call('HINCRBY', ARGV[6], previous, -1)
+        end
+
+        if previous ~= 'OFFLINE' then
+            redis.call('PUBLISH', ARGV[4], cjson.encode({
+                eventId = ARGV[5] .. ':' .. userId,
+                userId = userId,
+                status = 'OFFLINE',
+                timestamp = tonumber(ARGV[1]),
+                connectionId = ''
+            }))
+        end
+    end
+end
+
+return {#candidates, expiredUsers}
@@ -0,0 +1,161 @@
+-- Atomic presence update: idempotency, stale check, per-connection state and aggregation in one round trip
+--
+-- KEYS[1] idempotency bloom     presence:processed:{minute}, current bucket
+-- KEYS[2] presence record hash  presence:u:{userId}
+-- KEYS[3] connection zset       presence:u:{userId}:conns
+-- KEYS[4] online index shard    presence:online:users:{shard}
+-- KEYS[5] online hll bucket     presence:online:users:hll:{bucket}:{shard}
+-- KEYS[6] last-seen hash        presence:lastseen:{bucket}
+-- KEYS[7] activity bitmap       presence:active:{yyyyMMdd}
+-- KEYS[8] status counters hash presence:online:users:stats:{shard}, users per aggregated status except OFFLINE
+-- KEYS[9..] previous idempotency bloom buckets still inside the idempotency window
+--
+-- ARGV[1] userId
+-- ARGV[2] status
+-- ARGV[3] event timestamp in epoch millis
+-- ARGV[4] state ttl in seconds
+-- ARGV[5] idempotency bucket ttl in seconds
+-- ARGV[6] connection key (connectionId, else deviceId)
+-- ARGV[7] hll bucket ttl in seconds
+-- ARGV[8] presence changes channel, receives the new aggregated status as JSON when it changes
+-- ARGV[9] eventId
+-- ARGV[10] bloom capacity per bucket
+-- ARGV[11] bloom error rate
+-- ARGV[12] '1' to check the shared idempotency bloom buckets
+-- ARGV[13] activity bitmap offset, empty for non-numeric user ids
+-- ARGV[14] activity bitmap ttl in seconds
+--
+-- Record fields: s = aggregated status, ts = latest applied timestamp, c:{connection} = connection status
+-- Connection zset members are connection keys scored by their last event timestamp
+-- Online shard members are user ids scored by their last event timestamp, pruned by score instead of EXPIRE
+-- Online shard, hll and stats keys share the user's shard index, so no index key is hit by every update
+--
+-- The keys span several hash slots, so like the sweep script this assumes a standalone Redis (RedisConfig)
+--
+-- Returns {code, aggregated status}
+--   code 1 = applied and aggregated status changed, 2 = applied and unchanged, 0 = duplicate, -1 = stale
+
+-- Shared idempotency: one Bloom filter per minute instead of one key per event
+if ARGV[12] == '1' then
+    for i = 9, #KEYS do
+        if redis.call('BF.EXISTS', KEYS[i], ARGV[9]) == 1 then
+            return {0, ''}
+        end
+    end
+    local added = redis.call('BF.INSERT', KEYS[1], 'CAPACITY', ARGV[10], 'ERROR', ARGV[11], 'ITEMS', ARGV[9])
+    if added[1] == 0 then
+        return {0, ''}
+    end
+    if redis.call('TTL', KEYS[1]) < 0 then
+        redis.call('EXPIRE', KEYS[1], ARGV[5])
+    end
+end
+
+local eventTs = tonumber(ARGV[3])
+local ttl = tonumber(ARGV[4])
+local connection = ARGV[6]
+local field = 'c:' .. connection
+
+-- Staleness is per connection, devices of one user report independently
+local connectionTs = redis.call('ZSCORE', KEYS[3], connection)
+if connectionTs and eventTs < tonumber(connectionTs) then
+    return {-1, ''}
+end
+
+-- Drop connections that stopped heartbeating, all at once
+local now = redis.call('TIME')
+local cutoff = tonumber(now[1]) * 1000 - ttl * 1000
+local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', '(' .. cutoff)
+if #expired > 0 then
+    local fields = {}
+    for i, member in ipairs(expired) do
+        fields[i] = 'c:' .. member
+    end
+    redis.call('HDEL', KEYS[2], unpack(fields))
+    redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', '(' .. cutoff)
+end
+
+-- Apply the event to its connection, OFFLINE stays as a tombstone until pruned
+local status = ARGV[2]
+if status == 'HEARTBEAT' then
+    status = redis.call('HGET', KEYS[2], field)
+    if not status or status == 'OFFLINE' then
+        status = 'ONLINE'
+    end
+end
+redis.call('ZADD', KEYS[3], ARGV[3], connection)
+redis.call('HSET', KEYS[2], field, status)
+
+-- Aggregate by precedence ONLINE > AWAY > OFFLINE
+local rank = { OFFLINE = 0, AWAY = 1, ONLINE = 2 }
+local names = { [0] = 'OFFLINE', [1] = 'AWAY', [2] = 'ONLINE' }
+local best = 0
+local members = redis.call('ZRANGE', KEYS[3], 0, -1)
+if #members > 0 then
+    local fields = {}
+    for i, member in ipairs(members) do
+        fields[i] = 'c:' .. member
+    end
+    for _, value in ipairs(redis.call('HMGET', KEYS[2], unpack(fields))) do
+        if value and rank[value] and rank[value] > best then
+            best = rank[value]
+        end
+    end
+end
+local aggregated = names[best]
+
+local previous = redis.call('HGET', KEYS[2], 's')
+local currentTs = tonumber(redis.call('HGET', KEYS[2], 'ts') or '0') or 0
+redis.call('HSET', KEYS[2], 's', aggregated)
+if eventTs > currentTs then
+    redis.call('HSET', KEYS[2], 'ts', ARGV[3])
+end
+
+if aggregated == 'OFFLINE' then
+    redis.call('ZREM', KEYS[4], ARGV[1])
+else
+    redis.call('ZADD', KEYS[4], ARGV[3], ARGV[1])
+    -- Set the ttl once when the bucket is created, not on every update
+    if redis.call('PFADD', KEYS[5], ARGV[1]) == 1 and redis.call('TTL', KEYS[5]) < 0 then
+        redis.call('EXPIRE', KEYS[5], ARGV[7])
+    end
+end
+
+-- A counted record never expires on its own, the sweeper takes the user off the counters and sets the ttl
+-- Records are only created here and by the migration, neither leaves a ttl on an ONLINE or AWAY record
+if aggregated == 'OFFLINE' then
+    redis.call('EXPIRE', KEYS[2], ttl * 2)
+elseif previous == 'OFFLINE' then
+    redis.call('PERSIST', KEYS[2])
+end
+redis.call('EXPIRE', KEYS[3], ttl * 2)
+
+-- Last seen outlives the record, activity bits are set once per user and day
+local lastSeen = tonumber(redis.call('HGET', KEYS[6], ARGV[1]) or '0') or 0
+if eventTs > lastSeen then
+    redis.call('HSET', KEYS[6], ARGV[1], ARGV[3])
+end
+if ARGV[13] ~= '' and redis.call('SETBIT', KEYS[7], ARGV[13], 1) == 0 and redis.call('TTL', KEYS[7]) < 0 then
+    redis.call('EXPIRE', KEYS[7], ARGV[14])
+end
+
+if previous == aggregated then
+    return {2, aggregated}
+end
+
+-- Counters move with the aggregated status, a missing or OFFLINE previous status was not counted
+if previous and previous ~= 'OFFLINE' then
+    redis.call('HINCRBY', KEYS[8], previous, -1)
+end
+if aggregated ~= 'OFFLINE' then
+    redis.call('HINCRBY', KEYS[8], aggregated, 1)
+end
+
+redis.call('PUBLISH', ARGV[8], cjson.encode({
+    eventId = ARGV[9],
+    userId = ARGV[1],
+    status = aggregated,
+    timestamp = eventTs,
+    connectionId = connection
+}))
+return {1, aggregated}
@@ -0,0 +1,86 @@
+#!/usr/bin/env bash
+#
+# Compare Redis memory of the legacy presence layout (two string keys per user)
+# with the hash record layout (one hash per user) at N users.
+#
+# Usage: ./presence-memory-compare.sh [users] [db]
+#   users  number of simulated online users (default 1000000)
+#   db     scratch database index, FLUSHED before each run (default 15)
+#
+# Honors REDIS_HOST, REDIS_PORT and REDIS_PASSWORD like the presence service.
+
+set -euo pipefail
+
+USERS="${1:-1000000}"
+DB="${2:-15}"
+TTL=120
+
+CLI=(redis-cli -h "${REDIS_HOST:-localhost}" -p "${REDIS_PORT:-6379}" -n "$DB")
+if [[ -n "${REDIS_PASSWORD:-}" ]]; then
+    CLI+=(-a "$REDIS_PASSWORD" --no-auth-warning)
+fi
+
+used_memory() {
+    "${CLI[@]}" INFO memory | awk -F: '/^used_memory:/ { gsub("\r", "", $2); print $2 }'
+}
+
+populate() {
+    # Batches of 100k keep each script call short enough not to trip busy-script timeouts
+    local script="$1"
+    local batch=100000
+    local from=0
+    while (( from < USERS )); do
+        local to=$(( from + batch ))
+        (( to > USERS )) && to=$USERS
+        "${CLI[@]}" EVAL "$script" 0 "$from" "$to" "$TTL" > /dev/null
+        from=$to
+    done
+}
+
+measure() {
+    local name="$1"
+    local script="$2"
+
+    "${CLI[@]}" FLUSHDB > /dev/null
+    local before
+    before=$(used_memory)
+    populate "$script"
+    local after
+    after=$(used_memory)
+
+    local total=$(( after - before ))
+    printf '%-8s users=%d keys=%s bytes=%d bytes/user=%d\n' \
+        "$name" "$USERS" "$("${CLI[@]}" DBSIZE)" "$total" "$(( total / USERS ))"
+}
+
+LEGACY='
+local ts = "2025-01-01T00:00:00.000Z"
+for i = tonumber(ARGV[1]), tonumber(ARGV[2]) - 1 do
+    local key = "presence:user:" .. string.format("%036d", i)
+    redis.call("SET", key, "ONLINE", "EX", ARGV[3])
+    redis.call("SET", key .. ":ts", ts, "EX", ARGV[3])
+end
+'
+
+HASH='
+for i = tonumber(ARGV[1]), tonumber(ARGV[2]) - 1 do
+    local key = "presence:u:" .. string.format("%036d", i)
+    redis.call("HSET", key, "s", "ONLINE", "ts", "1735689600000")
+    redis.call("EXPIRE", key, ARGV[3])
+end
+'
+
+HASH_FULL='
+for i = tonumber(ARGV[1]), tonumber(ARGV[2]) - 1 do
+    local key = "presence:u:" .. string.format("%036d", i)
+    redis.call("HSET", key, "s", "ONLINE", "ts", "1735689600000",
+        "dev", "web-" .. (i % 8), "conn", string.format("%036d", i))
+    redis.call("EXPIRE", key, ARGV[3])
+end
+'
+
+echo "Redis $("${CLI[@]}" INFO server | awk -F: '/^redis_version:/ { gsub("\r", "", $2); print $2 }'), db $DB"
+measure "legacy" "$LEGACY"
+measure "hash" "$HASH"
+measure "hash+ids" "$HASH_FULL"
+"${CLI[@]}" FLUSHDB > /dev/null
@@ -88,7 +88,8 @@ func main() {
 	defer redisHub.Close(ctx)
 
 	// Initialize presence publisher (uses Redis hub internally)
-	presencePublisher := redis.NewPresencePublisher(redisHub.GetClient(), log)
+	presencePublisher := redis.NewPresencePublisher(
+		redisHub.GetClient(), log, cfg.Presence.Stream, cfg.Presence.StreamMaxLen)
 
 	// Verify Redis connection for presence
 	if err := presencePublisher.Ping(ctx); err != nil {
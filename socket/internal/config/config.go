@@ -99,6 +99,8 @@ type LoggingConfig struct {
 type PresenceConfig struct {
 	HeartbeatInterval string
 	Channel           string
+	Stream            string // enables Redis Streams publishing (XADD) instead of pub/sub when set
+	StreamMaxLen      int64
 }
 
 func Load() (*Config, error) {
@@ -140,6 +142,8 @@ func Load() (*Config, error) {
 		Presence: PresenceConfig{
 			HeartbeatInterval: "30s",
 			Channel:           "presence:channel",
+			Stream:            getEnv("PRESENCE_STREAM", ""),
+			StreamMaxLen:      int64(getEnvAsInt("PRESENCE_STREAM_MAXLEN", 100000)),
 		},
 	}
 
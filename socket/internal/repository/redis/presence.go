@@ -21,17 +21,23 @@ const (
 
 // PresencePublisher publishes presence events to Redis
 type PresencePublisher struct {
-	client  *redis.Client
-	log     *logger.Logger
-	channel string
+	client       *redis.Client
+	log          *logger.Logger
+	channel      string
+	stream       string
+	streamMaxLen int64
 }
 
-// NewPresencePublisher creates a new Redis-based presence publisher
-func NewPresencePublisher(client *redis.Client, log *logger.Logger) *PresencePublisher {
+// NewPresencePublisher creates a new Redis-based presence publisher.
+// When stream is non-empty, events are appended to that Redis Stream (XADD, approximately
+// trimmed to streamMaxLen) instead of being published on the pub/sub channel.
+func NewPresencePublisher(client *redis.Client, log *logger.Logger, stream string, streamMaxLen int64) *PresencePublisher {
 	return &PresencePublisher{
-		client:  client,
-		log:     log,
-		channel: presenceChannel,
+		client:       client,
+		log:          log,
+		channel:      presenceChannel,
+		stream:       stream,
+		streamMaxLen: streamMaxLen,
 	}
 }
 
@@ -52,6 +58,28 @@ func (p *PresencePublisher) PublishPresence(ctx context.Context, event domain.Pr
 		return fmt.Errorf("failed to marshal presence event: %w", err)
 	}
 
+	// Append to Redis stream when configured
+	if p.stream != "" {
+		args := &redis.XAddArgs{
+			Stream: p.stream,
+			MaxLen: p.streamMaxLen,
+			Approx: true,
+			Values: map[string]interface{}{"event": data},
+		}
+		if err := p.client.XAdd(publishCtx, args).Err(); err != nil {
+			p.log.Error(ctx, "failed to append presence event to Redis stream", err)
+			return fmt.Errorf("failed to append to Redis stream: %w", err)
+		}
+
+		p.log.Debug(ctx, "presence event appended", map[string]interface{}{
+			"event_id": event.EventID,
+			"user_id":  event.UserID,
+			"status":   event.Status,
+			"stream":   p.stream,
+		})
+		return nil
+	}
+
 	// Publish to Redis channel
 	if err := p.client.Publish(publishCtx, p.channel, data).Err(); err != nil {
 		p.log.Error(ctx, "failed to publish presence event to Redis", err)
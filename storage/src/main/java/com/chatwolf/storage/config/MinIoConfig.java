@@ -1,5 +1,6 @@
 package com.chatwolf.storage.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,4 +25,12 @@ public class MinIoConfig {
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    @Bean
+    MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
 }
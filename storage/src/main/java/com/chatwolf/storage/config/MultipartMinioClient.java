@@ -0,0 +1,76 @@
+package com.chatwolf.storage.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ListPartsResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exposes the S3 multipart upload calls that MinioClient only uses internally for putObject
+ * Lets chunked uploads map each chunk onto one part, completion is a server-side operation.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    // S3 lists at most 1000 parts per ListParts call
+    private static final int LIST_PARTS_PAGE_SIZE = 1000;
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public String createMultipartUpload(String bucket, String objectKey, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("Content-Type", contentType);
+
+        return createMultipartUploadAsync(bucket, null, objectKey, headers, null)
+                .get()
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * Upload one part, returns its ETag
+     */
+    public String uploadPart(
+            String bucket, String objectKey, String uploadId, int partNumber, InputStream data, long length)
+            throws Exception {
+
+        return uploadPartAsync(bucket, null, objectKey, data, length, uploadId, partNumber, null, null)
+                .get()
+                .etag();
+    }
+
+    /**
+     * Every part uploaded so far, as recorded by the server
+     */
+    public List<Part> listParts(String bucket, String objectKey, String uploadId) throws Exception {
+        List<Part> parts = new ArrayList<>();
+        Integer marker = null;
+
+        while (true) {
+            ListPartsResponse response = listPartsAsync(
+                            bucket, null, objectKey, LIST_PARTS_PAGE_SIZE, marker, uploadId, null, null)
+                    .get();
+            parts.addAll(response.result().partList());
+
+            if (!response.result().isTruncated()) {
+                return parts;
+            }
+            marker = response.result().nextPartNumberMarker();
+        }
+    }
+
+    public void completeMultipartUpload(String bucket, String objectKey, String uploadId, Part[] parts)
+            throws Exception {
+        completeMultipartUploadAsync(bucket, null, objectKey, uploadId, parts, null, null)
+                .get();
+    }
+
+    public void abortMultipartUpload(String bucket, String objectKey, String uploadId) throws Exception {
+        abortMultipartUploadAsync(bucket, null, objectKey, uploadId, null, null).get();
+    }
+}
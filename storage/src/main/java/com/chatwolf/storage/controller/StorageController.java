@@ -1,16 +1,24 @@
 package com.chatwolf.storage.controller;
 
 import com.chatwolf.storage.dto.ChunkUploadRequest;
+import com.chatwolf.storage.dto.CreateUploadSessionRequest;
+import com.chatwolf.storage.dto.CreateUploadTicketRequest;
 import com.chatwolf.storage.dto.ShareFileRequest;
 import com.chatwolf.storage.dto.UploadResponse;
+import com.chatwolf.storage.dto.UploadSessionResponse;
+import com.chatwolf.storage.dto.UploadTicketResponse;
 import com.chatwolf.storage.entity.FileMetadata;
 import com.chatwolf.storage.service.StorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,6 +28,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -46,6 +55,30 @@ public class StorageController {
                                 .build()));
     }
 
+    /**
+     * Streaming upload, the request body is the raw file content and its Content-Type the file type
+     * Never parsed as multipart, so nothing is spooled to memory or temp files before reaching MinIO.
+     */
+    @PostMapping("/upload/stream")
+    public CompletableFuture<ResponseEntity<UploadResponse>> uploadStream(
+            @RequestParam String filename,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = "X-Checksum-SHA256", required = false) String checksum,
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserDetails user)
+            throws IOException {
+
+        return storageService
+                .uploadStreamAsync(
+                        request.getInputStream(),
+                        request.getContentLengthLong(),
+                        filename,
+                        contentType,
+                        checksum,
+                        user.getUsername())
+                .thenApply(ResponseEntity::ok);
+    }
+
     @PostMapping("/upload/chunk")
     public CompletableFuture<ResponseEntity<UploadResponse>> uploadChunk(
             @Valid @ModelAttribute ChunkUploadRequest request,
@@ -57,6 +90,59 @@ public class StorageController {
                 .thenApply(ResponseEntity::ok);
     }
 
+    @PostMapping("/upload/session")
+    public CompletableFuture<ResponseEntity<UploadSessionResponse>> createUploadSession(
+            @Valid @RequestBody CreateUploadSessionRequest request, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService
+                .createUploadSessionAsync(request, user.getUsername())
+                .thenApply(session -> ResponseEntity.status(HttpStatus.CREATED).body(session));
+    }
+
+    /**
+     * Upload session status, HEAD returns only the X-Upload-Received-Chunks header
+     */
+    @GetMapping("/upload/session/{uploadId}")
+    public CompletableFuture<ResponseEntity<UploadSessionResponse>> getUploadSession(
+            @PathVariable String uploadId, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService
+                .getUploadSessionAsync(uploadId, user.getUsername())
+                .thenApply(session -> ResponseEntity.ok()
+                        .header(
+                                "X-Upload-Received-Chunks",
+                                session.getReceivedChunks() + "/" + session.getTotalChunks())
+                        .body(session));
+    }
+
+    @DeleteMapping("/upload/session/{uploadId}")
+    public CompletableFuture<ResponseEntity<Void>> abortUploadSession(
+            @PathVariable String uploadId, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService
+                .abortUploadSessionAsync(uploadId, user.getUsername())
+                .thenApply(v -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Presigned POST policy for uploading straight to MinIO, the bytes never pass through this service
+     */
+    @PostMapping("/upload/ticket")
+    public CompletableFuture<ResponseEntity<UploadTicketResponse>> createUploadTicket(
+            @Valid @RequestBody CreateUploadTicketRequest request, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService
+                .createUploadTicketAsync(request, user.getUsername())
+                .thenApply(ticket -> ResponseEntity.status(HttpStatus.CREATED).body(ticket));
+    }
+
+    @PostMapping("/upload/ticket/{ticketId}/complete")
+    public CompletableFuture<ResponseEntity<UploadResponse>> completeUploadTicket(
+            @PathVariable String ticketId, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService.completeUploadTicketAsync(ticketId, user.getUsername()).thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/presign/{objectKey}")
     public CompletableFuture<ResponseEntity<Map<String, String>>> getPresignedUrl(
             @PathVariable String objectKey, @AuthenticationPrincipal UserDetails user) {
@@ -66,6 +152,13 @@ public class StorageController {
                 .thenApply(url -> ResponseEntity.ok(Map.of("url", url)));
     }
 
+    @PostMapping("/presign/batch")
+    public CompletableFuture<ResponseEntity<Map<String, String>>> getPresignedUrls(
+            @RequestBody List<String> objectKeys, @AuthenticationPrincipal UserDetails user) {
+
+        return storageService.getPresignedUrlsAsync(objectKeys, user.getUsername()).thenApply(ResponseEntity::ok);
+    }
+
     @GetMapping("/{objectKey}/download")
     public CompletableFuture<Void> download(
             @PathVariable String objectKey, @AuthenticationPrincipal UserDetails user, HttpServletResponse response) {
@@ -0,0 +1,18 @@
+package com.chatwolf.storage.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CreateUploadSessionRequest {
+    @NotBlank
+    private String filename;
+
+    private String contentType;
+
+    @NotNull
+    @Min(1)
+    private Integer totalChunks;
+}
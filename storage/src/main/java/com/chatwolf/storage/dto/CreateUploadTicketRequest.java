@@ -0,0 +1,20 @@
+package com.chatwolf.storage.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CreateUploadTicketRequest {
+    @NotBlank
+    private String filename;
+
+    @NotBlank
+    private String contentType;
+
+    // Size of the file in bytes, the upload is rejected by MinIO if it is larger
+    @NotNull
+    @Min(1)
+    private Long size;
+}
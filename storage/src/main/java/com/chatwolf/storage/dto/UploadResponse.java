@@ -15,6 +15,7 @@ public class UploadResponse {
     private String filename;
     private Long size;
     private String contentType;
+    private String checksum;
     private Instant uploadedAt;
     private Boolean success;
     private String message;
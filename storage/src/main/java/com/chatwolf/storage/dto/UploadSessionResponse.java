@@ -0,0 +1,30 @@
+package com.chatwolf.storage.dto;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionResponse {
+    private String uploadId;
+    private String status;
+    private String filename;
+    private String contentType;
+    private Integer totalChunks;
+    private Integer receivedChunks;
+
+    // Chunk numbers still to be uploaded, in ascending order
+    private List<Integer> missingChunks;
+
+    // Set once the upload is completed
+    private String objectKey;
+
+    private Instant createdAt;
+    private Instant expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.chatwolf.storage.dto;
+
+import java.time.Instant;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadTicketResponse {
+    private String ticketId;
+    private String objectKey;
+
+    // multipart/form-data POST target, formData goes first and the file last as the "file" field
+    private String uploadUrl;
+    private Map<String, String> formData;
+
+    private Instant expiresAt;
+}
@@ -42,6 +42,10 @@ public class FileMetadata {
     @Column(nullable = false)
     private Instant uploadedAt;
 
+    // SHA-256 hex, computed while the content is streamed in
+    @Column(length = 64)
+    private String checksum;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "file_shares", joinColumns = @JoinColumn(name = "file_id"))
     @Column(name = "user_id")
@@ -0,0 +1,41 @@
+package com.chatwolf.storage.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+
+/**
+ * Every S3 multipart upload the service starts, recorded as soon as S3 hands out its id
+ * MinIO cannot list multipart uploads across a bucket, so this table is what the cleanup aborts from.
+ * The row is dropped once the upload is completed or aborted.
+ */
+@Entity
+@Table(
+        name = "t_multipart_upload",
+        indexes = {@Index(name = "idx_multipart_upload_created_at", columnList = "createdAt")})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultipartUploadRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 255)
+    private String multipartUploadId;
+
+    @Column(nullable = false, length = 500)
+    private String objectKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
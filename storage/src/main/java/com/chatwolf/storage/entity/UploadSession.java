@@ -0,0 +1,79 @@
+package com.chatwolf.storage.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+
+@Entity
+@Table(
+        name = "t_upload_session",
+        indexes = {
+            @Index(name = "idx_upload_session_upload_id", columnList = "uploadId"),
+            @Index(name = "idx_upload_session_expires_at", columnList = "expiresAt")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_COMPLETING = "COMPLETING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_ABORTED = "ABORTED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Id shared by every chunk of the upload, chosen by the client or issued when the session is created
+    @Column(unique = true, nullable = false, length = 100)
+    private String uploadId;
+
+    @Column(nullable = false, length = 100)
+    private String userId;
+
+    @Column(nullable = false, length = 500)
+    private String objectKey;
+
+    // S3 multipart upload id the chunks are uploaded to as parts
+    @Column(nullable = false, length = 255)
+    private String multipartUploadId;
+
+    @Column(nullable = false, length = 255)
+    private String filename;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Integer totalChunks;
+
+    // Bit n set once chunk n + 1 is stored as a part, same bit order as java.util.BitSet and Postgres set_bit
+    @Column(nullable = false)
+    private byte[] receivedChunks;
+
+    @Column(nullable = false, length = 20)
+    private String status; // ACTIVE, COMPLETING, COMPLETED, ABORTED, EXPIRED
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Pushed forward by every chunk, abandoned sessions are reclaimed once it passes
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+        if (status == null) {
+            status = STATUS_ACTIVE;
+        }
+        if (receivedChunks == null) {
+            receivedChunks = new byte[(totalChunks + 7) / 8];
+        }
+    }
+}
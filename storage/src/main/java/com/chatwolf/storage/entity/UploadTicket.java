@@ -0,0 +1,73 @@
+package com.chatwolf.storage.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.*;
+
+@Entity
+@Table(
+        name = "t_upload_ticket",
+        indexes = {
+            @Index(name = "idx_upload_ticket_ticket_id", columnList = "ticketId"),
+            @Index(name = "idx_upload_ticket_expires_at", columnList = "expiresAt")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadTicket {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_COMPLETING = "COMPLETING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_REJECTED = "REJECTED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false, length = 100)
+    private String ticketId;
+
+    @Column(nullable = false, length = 100)
+    private String userId;
+
+    // Object the client uploads to directly, fixed by the POST policy
+    @Column(unique = true, nullable = false, length = 500)
+    private String objectKey;
+
+    // Object the upload is copied to on completion, the POST policy cannot write it
+    @Column(unique = true, length = 500)
+    private String fileKey;
+
+    @Column(nullable = false, length = 255)
+    private String filename;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    // Declared by the client, the POST policy rejects anything larger
+    @Column(nullable = false)
+    private Long maxSize;
+
+    @Column(nullable = false, length = 20)
+    private String status; // PENDING, COMPLETING, COMPLETED, REJECTED, EXPIRED
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // The POST policy stops accepting the upload at this time
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+        if (status == null) {
+            status = STATUS_PENDING;
+        }
+    }
+}
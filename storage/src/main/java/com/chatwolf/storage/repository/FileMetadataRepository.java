@@ -2,6 +2,7 @@ package com.chatwolf.storage.repository;
 
 import com.chatwolf.storage.entity.FileMetadata;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +26,11 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
     @Query("SELECT f FROM FileMetadata f WHERE f.uploadedBy = :userId " + "OR :userId MEMBER OF f.sharedWithUsers")
     List<FileMetadata> findAccessibleByUser(@Param("userId") String userId, Pageable pageable);
 
+    @Query("SELECT f.objectKey FROM FileMetadata f WHERE f.objectKey IN :objectKeys "
+            + "AND (f.uploadedBy = :userId OR :userId MEMBER OF f.sharedWithUsers)")
+    List<String> findAccessibleObjectKeys(
+            @Param("objectKeys") Collection<String> objectKeys, @Param("userId") String userId);
+
     List<FileMetadata> findByConversationId(String conversationId);
 
     List<FileMetadata> findByChatMessageId(String chatMessageId);
@@ -0,0 +1,19 @@
+package com.chatwolf.storage.repository;
+
+import com.chatwolf.storage.entity.MultipartUploadRecord;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MultipartUploadRecordRepository extends JpaRepository<MultipartUploadRecord, Long> {
+
+    List<MultipartUploadRecord> findByCreatedAtBefore(Instant before);
+
+    @Modifying
+    @Transactional
+    long deleteByMultipartUploadId(String multipartUploadId);
+}
@@ -0,0 +1,53 @@
+package com.chatwolf.storage.repository;
+
+import com.chatwolf.storage.entity.UploadSession;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    Optional<UploadSession> findByUploadId(String uploadId);
+
+    List<UploadSession> findByStatusInAndExpiresAtBefore(Collection<String> statuses, Instant before);
+
+    @Query("SELECT s.multipartUploadId FROM UploadSession s "
+            + "WHERE s.multipartUploadId IN :multipartUploadIds AND s.status IN :statuses")
+    List<String> findMultipartUploadIdsByStatusIn(
+            @Param("multipartUploadIds") Collection<String> multipartUploadIds,
+            @Param("statuses") Collection<String> statuses);
+
+    /**
+     * Compare-and-set on the status, returns 1 for the only caller that made the transition
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :to WHERE s.uploadId = :uploadId AND s.status = :from")
+    int transitionStatus(@Param("uploadId") String uploadId, @Param("from") String from, @Param("to") String to);
+
+    /**
+     * Set the chunk's bit in place and extend the session, concurrent chunks never overwrite each other's bits
+     */
+    @Modifying
+    @Transactional
+    @Query(
+            value = "UPDATE t_upload_session SET received_chunks = set_bit(received_chunks, :chunkIndex, 1), "
+                    + "expires_at = :expiresAt WHERE upload_id = :uploadId AND status = 'ACTIVE'",
+            nativeQuery = true)
+    int markChunkReceived(
+            @Param("uploadId") String uploadId,
+            @Param("chunkIndex") int chunkIndex,
+            @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    long deleteByStatusInAndExpiresAtBefore(Collection<String> statuses, Instant before);
+}
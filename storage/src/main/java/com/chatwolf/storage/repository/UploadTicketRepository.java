@@ -0,0 +1,42 @@
+package com.chatwolf.storage.repository;
+
+import com.chatwolf.storage.entity.UploadTicket;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadTicketRepository extends JpaRepository<UploadTicket, Long> {
+
+    Optional<UploadTicket> findByTicketId(String ticketId);
+
+    List<UploadTicket> findByStatusInAndExpiresAtBefore(Collection<String> statuses, Instant before);
+
+    /**
+     * Compare-and-set on the status, returns 1 for the only caller that made the transition
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadTicket t SET t.status = :to WHERE t.ticketId = :ticketId AND t.status = :from")
+    int transitionStatus(@Param("ticketId") String ticketId, @Param("from") String from, @Param("to") String to);
+
+    /**
+     * COMPLETING -> COMPLETED, recording the key the upload was copied to
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadTicket t SET t.status = 'COMPLETED', t.fileKey = :fileKey "
+            + "WHERE t.ticketId = :ticketId AND t.status = 'COMPLETING'")
+    int markCompleted(@Param("ticketId") String ticketId, @Param("fileKey") String fileKey);
+
+    @Modifying
+    @Transactional
+    long deleteByStatusInAndExpiresAtBefore(Collection<String> statuses, Instant before);
+}
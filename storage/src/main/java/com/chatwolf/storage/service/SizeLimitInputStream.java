@@ -0,0 +1,65 @@
+package com.chatwolf.storage.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+/**
+ * Counts the bytes read and fails as soon as they exceed the limit
+ * Lets a streamed upload be rejected mid-body instead of after it was stored.
+ */
+class SizeLimitInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private final Supplier<? extends RuntimeException> onLimitExceeded;
+    private long bytesRead;
+
+    SizeLimitInputStream(InputStream in, long maxBytes, Supplier<? extends RuntimeException> onLimitExceeded) {
+        super(in);
+        this.maxBytes = maxBytes;
+        this.onLimitExceeded = onLimitExceeded;
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    // mark/reset would let bytes be counted twice
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) {
+        bytesRead += n;
+        if (bytesRead > maxBytes) {
+            throw onLimitExceeded.get();
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package com.chatwolf.storage.service;
 
+import com.chatwolf.storage.config.MultipartMinioClient;
 import com.chatwolf.storage.entity.FileMetadata;
+import com.chatwolf.storage.entity.MultipartUploadRecord;
+import com.chatwolf.storage.entity.UploadSession;
+import com.chatwolf.storage.entity.UploadTicket;
 import com.chatwolf.storage.repository.FileMetadataRepository;
+import com.chatwolf.storage.repository.MultipartUploadRecordRepository;
+import com.chatwolf.storage.repository.UploadSessionRepository;
+import com.chatwolf.storage.repository.UploadTicketRepository;
+import io.minio.ListObjectsArgs;
 import io.minio.MinioClient;
 import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Item;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,6 +36,26 @@ public class StorageCleanupService {
 
     private final MinioClient minioClient;
     private final FileMetadataRepository metadataRepository;
+    private final MultipartMinioClient multipartClient;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadTicketRepository uploadTicketRepository;
+    private final MultipartUploadRecordRepository multipartUploadRecordRepository;
+
+    // Sessions still able to receive or complete chunks, their multipart uploads must be left alone
+    private static final List<String> OPEN_SESSION_STATUSES =
+            List.of(UploadSession.STATUS_ACTIVE, UploadSession.STATUS_COMPLETING);
+
+    private static final List<String> FINISHED_SESSION_STATUSES = List.of(
+            UploadSession.STATUS_COMPLETED, UploadSession.STATUS_ABORTED, UploadSession.STATUS_EXPIRED);
+
+    private static final List<String> OPEN_TICKET_STATUSES =
+            List.of(UploadTicket.STATUS_PENDING, UploadTicket.STATUS_COMPLETING);
+
+    private static final List<String> FINISHED_TICKET_STATUSES =
+            List.of(UploadTicket.STATUS_COMPLETED, UploadTicket.STATUS_REJECTED, UploadTicket.STATUS_EXPIRED);
+
+    // Prefix of the per-chunk objects written before chunks became multipart parts
+    private static final String LEGACY_CHUNK_PREFIX = "chunks/";
 
     @Value("${minio.bucket}")
     private String bucket;
@@ -28,6 +63,18 @@ public class StorageCleanupService {
     @Value("${storage.retention-days:90}")
     private int retentionDays;
 
+    @Value("${upload.session.expiry-hours:24}")
+    private long uploadSessionExpiryHours;
+
+    @Value("${upload.session.retention-days:7}")
+    private int uploadSessionRetentionDays;
+
+    @Value("${storage.direct-upload.completion-grace-minutes:60}")
+    private long directUploadCompletionGraceMinutes;
+
+    @Value("${storage.direct-upload.retention-days:7}")
+    private int directUploadRetentionDays;
+
     @Scheduled(cron = "0 0 2 * * *") // Run at 2 AM daily
     @Transactional
     public void cleanupOldFiles() {
@@ -55,10 +102,179 @@ public class StorageCleanupService {
         log.info("Cleanup completed. Deleted {} old files", deletedCount);
     }
 
+    /**
+     * Reclaim the parts of abandoned chunked uploads
+     * No transaction around the whole run, S3 calls are slow and every session update is its own compare-and-set.
+     */
     @Scheduled(cron = "0 30 2 * * *") // Run at 2:30 AM daily
-    @Transactional
     public void cleanupOrphanedChunks() {
         log.info("Starting cleanup of orphaned chunks");
-        // Implementation for cleaning up incomplete chunk uploads
+
+        Instant now = Instant.now();
+        int expiredCount = expireUploadSessions(now);
+        int strayCount = abortStrayMultipartUploads(now.minus(uploadSessionExpiryHours, ChronoUnit.HOURS));
+        int legacyCount = removeLegacyChunks(now.minus(uploadSessionExpiryHours, ChronoUnit.HOURS));
+
+        long purgedCount = uploadSessionRepository.deleteByStatusInAndExpiresAtBefore(
+                FINISHED_SESSION_STATUSES, now.minus(uploadSessionRetentionDays, ChronoUnit.DAYS));
+
+        log.info(
+                "Orphaned chunk cleanup completed. Expired {} sessions, aborted {} stray uploads, "
+                        + "removed {} legacy chunks, purged {} finished sessions",
+                expiredCount,
+                strayCount,
+                legacyCount,
+                purgedCount);
+    }
+
+    /**
+     * Direct uploads the client never completed are removed, their bytes were never counted against the quota
+     * Tickets stay completable for a grace period after the POST policy expired, an upload may finish just in time.
+     */
+    @Scheduled(cron = "0 45 2 * * *") // Run at 2:45 AM daily
+    public void cleanupAbandonedDirectUploads() {
+        log.info("Starting cleanup of abandoned direct uploads");
+
+        Instant now = Instant.now();
+        List<UploadTicket> abandoned = uploadTicketRepository.findByStatusInAndExpiresAtBefore(
+                OPEN_TICKET_STATUSES, now.minus(directUploadCompletionGraceMinutes, ChronoUnit.MINUTES));
+
+        int expiredCount = 0;
+        for (UploadTicket ticket : abandoned) {
+            if (uploadTicketRepository.transitionStatus(
+                            ticket.getTicketId(), ticket.getStatus(), UploadTicket.STATUS_EXPIRED)
+                    == 0) {
+                continue;
+            }
+
+            try {
+                // No error when the client never uploaded anything
+                minioClient.removeObject(RemoveObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(ticket.getObjectKey())
+                        .build());
+                expiredCount++;
+
+            } catch (Exception e) {
+                log.error("Failed to remove abandoned direct upload: {}", ticket.getObjectKey(), e);
+            }
+        }
+
+        // The POST policy of a finished ticket may have been used again before it expired, that object is never served
+        Instant purgeBefore = now.minus(directUploadRetentionDays, ChronoUnit.DAYS);
+        for (UploadTicket ticket :
+                uploadTicketRepository.findByStatusInAndExpiresAtBefore(FINISHED_TICKET_STATUSES, purgeBefore)) {
+            try {
+                minioClient.removeObject(RemoveObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(ticket.getObjectKey())
+                        .build());
+            } catch (Exception e) {
+                log.error("Failed to remove direct upload of finished ticket: {}", ticket.getObjectKey(), e);
+            }
+        }
+        long purgedCount =
+                uploadTicketRepository.deleteByStatusInAndExpiresAtBefore(FINISHED_TICKET_STATUSES, purgeBefore);
+
+        log.info(
+                "Direct upload cleanup completed. Expired {} tickets, purged {} finished tickets",
+                expiredCount,
+                purgedCount);
+    }
+
+    /**
+     * Sessions past their expiry are marked EXPIRED and their multipart upload aborted, which drops every part
+     * A COMPLETING session this old means its completer died, the status check keeps live ones untouched.
+     */
+    private int expireUploadSessions(Instant now) {
+        int expiredCount = 0;
+
+        List<UploadSession> expired =
+                uploadSessionRepository.findByStatusInAndExpiresAtBefore(OPEN_SESSION_STATUSES, now);
+
+        for (UploadSession session : expired) {
+            if (uploadSessionRepository.transitionStatus(
+                            session.getUploadId(), session.getStatus(), UploadSession.STATUS_EXPIRED)
+                    == 0) {
+                continue;
+            }
+
+            try {
+                multipartClient.abortMultipartUpload(bucket, session.getObjectKey(), session.getMultipartUploadId());
+                multipartUploadRecordRepository.deleteByMultipartUploadId(session.getMultipartUploadId());
+                expiredCount++;
+
+            } catch (Exception e) {
+                // Retried by the stray upload sweep once the session is no longer open
+                log.error("Failed to abort expired upload: {}", session.getUploadId(), e);
+            }
+        }
+        return expiredCount;
+    }
+
+    /**
+     * Recorded multipart uploads with no open session, e.g. the loser of a session creation race whose abort failed
+     * Aborts go by the upload records, MinIO does not support listing multipart uploads across the bucket.
+     */
+    private int abortStrayMultipartUploads(Instant createdBefore) {
+        List<MultipartUploadRecord> candidates = multipartUploadRecordRepository.findByCreatedAtBefore(createdBefore);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> open = new HashSet<>(uploadSessionRepository.findMultipartUploadIdsByStatusIn(
+                candidates.stream().map(MultipartUploadRecord::getMultipartUploadId).collect(Collectors.toSet()),
+                OPEN_SESSION_STATUSES));
+
+        int abortedCount = 0;
+        for (MultipartUploadRecord upload : candidates) {
+            if (open.contains(upload.getMultipartUploadId())) {
+                continue;
+            }
+            try {
+                multipartClient.abortMultipartUpload(bucket, upload.getObjectKey(), upload.getMultipartUploadId());
+                abortedCount++;
+            } catch (Exception e) {
+                // Already completed or aborted, only the record was left behind
+                if (!isNoSuchUpload(e)) {
+                    log.error("Failed to abort stray multipart upload: {}", upload.getObjectKey(), e);
+                    continue;
+                }
+            }
+            multipartUploadRecordRepository.delete(upload);
+        }
+        return abortedCount;
+    }
+
+    private static boolean isNoSuchUpload(Exception e) {
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        return cause instanceof ErrorResponseException error
+                && "NoSuchUpload".equals(error.errorResponse().code());
+    }
+
+    private int removeLegacyChunks(Instant modifiedBefore) {
+        int removedCount = 0;
+
+        Iterable<Result<Item>> chunks = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .prefix(LEGACY_CHUNK_PREFIX)
+                .recursive(true)
+                .build());
+
+        for (Result<Item> result : chunks) {
+            try {
+                Item chunk = result.get();
+                if (chunk.lastModified().toInstant().isBefore(modifiedBefore)) {
+                    minioClient.removeObject(RemoveObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(chunk.objectName())
+                            .build());
+                    removedCount++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to remove legacy chunk", e);
+            }
+        }
+        return removedCount;
     }
 }
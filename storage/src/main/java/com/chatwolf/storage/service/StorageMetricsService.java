@@ -1,7 +1,9 @@
 package com.chatwolf.storage.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -43,6 +45,10 @@ public class StorageMetricsService {
                 .increment();
     }
 
+    public void monitorCache(String cacheName, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, cacheName);
+    }
+
     private String getTypeCategory(String contentType) {
         if (contentType == null) return "unknown";
         if (contentType.startsWith("image/")) return "image";
@@ -1,25 +1,51 @@
 package com.chatwolf.storage.service;
 
+import com.chatwolf.storage.config.MultipartMinioClient;
 import com.chatwolf.storage.dto.ChunkUploadRequest;
+import com.chatwolf.storage.dto.CreateUploadSessionRequest;
+import com.chatwolf.storage.dto.CreateUploadTicketRequest;
 import com.chatwolf.storage.dto.UploadResponse;
+import com.chatwolf.storage.dto.UploadSessionResponse;
+import com.chatwolf.storage.dto.UploadTicketResponse;
 import com.chatwolf.storage.entity.FileMetadata;
+import com.chatwolf.storage.entity.MultipartUploadRecord;
+import com.chatwolf.storage.entity.UploadSession;
+import com.chatwolf.storage.entity.UploadTicket;
 import com.chatwolf.storage.exception.FileValidationException;
+import com.chatwolf.storage.exception.NotFoundException;
 import com.chatwolf.storage.exception.QuotaExceededException;
 import com.chatwolf.storage.exception.StorageException;
+import com.chatwolf.storage.exception.UnauthorizedException;
 import com.chatwolf.storage.repository.FileMetadataRepository;
+import com.chatwolf.storage.repository.MultipartUploadRecordRepository;
+import com.chatwolf.storage.repository.UploadSessionRepository;
+import com.chatwolf.storage.repository.UploadTicketRepository;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.Part;
+import jakarta.annotation.PostConstruct;
 import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +60,10 @@ public class StorageService {
     private final FileMetadataRepository metadataRepository;
     private final MediaProcessingService mediaProcessingService;
     private final StorageMetricsService metricsService;
+    private final MultipartMinioClient multipartClient;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadTicketRepository uploadTicketRepository;
+    private final MultipartUploadRecordRepository multipartUploadRecordRepository;
 
     @Value("${minio.bucket}")
     private String bucket;
@@ -50,6 +80,39 @@ public class StorageService {
     @Value("${upload.chunk-size:5242880}")
     private int chunkSize;
 
+    // Buffered per streamed upload, MinIO needs whole parts of at least 5 MiB
+    @Value("${upload.stream.part-size:5242880}")
+    private long streamPartSize;
+
+    @Value("${upload.session.expiry-hours:24}")
+    private long uploadSessionExpiryHours;
+
+    // Kept short, the POST policy stays usable until it expires even after the ticket was completed
+    @Value("${storage.direct-upload.expiry-minutes:5}")
+    private long directUploadExpiryMinutes;
+
+    // Where clients reach MinIO, the POST policy signature does not cover the host
+    @Value("${storage.direct-upload.public-endpoint:${minio.endpoint}}")
+    private String directUploadEndpoint;
+
+    @Value("${storage.presign.expiry-minutes:60}")
+    private int presignExpiryMinutes;
+
+    @Value("${storage.presign.cache-ttl-minutes:50}")
+    private long presignCacheTtlMinutes;
+
+    @Value("${storage.presign.refresh-after-minutes:40}")
+    private long presignRefreshAfterMinutes;
+
+    @Value("${storage.presign.cache-max-size:10000}")
+    private long presignCacheMaxSize;
+
+    @Value("${storage.presign.batch-max-keys:100}")
+    private int presignBatchMaxKeys;
+
+    // Presigned URLs keyed by (objectKey, userId), expired well before the URL itself
+    private LoadingCache<PresignKey, String> presignedUrlCache;
+
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList(
             "image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp", "image/bmp", "image/svg+xml");
 
@@ -61,6 +124,43 @@ public class StorageService {
             "application/msword",
             "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
 
+    // S3 multipart limits: minimum size of every part but the last, maximum number of parts
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    // Direct uploads land under this prefix, files are only ever served from the key they are copied to
+    private static final String DIRECT_UPLOAD_PREFIX = "incoming/";
+
+    private record PresignKey(String objectKey, String userId) {}
+
+    @PostConstruct
+    void initPresignedUrlCache() {
+        if (presignCacheTtlMinutes >= presignExpiryMinutes || presignRefreshAfterMinutes >= presignCacheTtlMinutes) {
+            throw new IllegalStateException(
+                    "Presigned URL cache must refresh before it expires and expire before the URL does");
+        }
+
+        presignedUrlCache = Caffeine.newBuilder()
+                .maximumSize(presignCacheMaxSize)
+                .expireAfterWrite(presignCacheTtlMinutes, TimeUnit.MINUTES)
+                .refreshAfterWrite(presignRefreshAfterMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build(new CacheLoader<PresignKey, String>() {
+                    @Override
+                    public String load(PresignKey key) throws Exception {
+                        verifyFileAccess(key.objectKey(), key.userId());
+                        return signPresignedUrl(key.objectKey());
+                    }
+
+                    @Override
+                    public Map<PresignKey, String> loadAll(Set<? extends PresignKey> keys) throws Exception {
+                        return loadPresignedUrls(keys);
+                    }
+                });
+
+        metricsService.monitorCache("presigned_urls", presignedUrlCache);
+    }
+
     @Async("storageTaskExecutor")
     @Transactional
     public CompletableFuture<UploadResponse> uploadAsync(MultipartFile file, String userId) {
@@ -117,62 +217,339 @@ public class StorageService {
         });
     }
 
+    /**
+     * Upload from the raw request body, piped into MinIO one bounded part at a time
+     * Nothing is spooled to memory or temp files beyond a single part. The size limit and remaining quota are
+     * enforced while reading and the SHA-256 is computed on the fly.
+     */
+    @Async("storageTaskExecutor")
+    public CompletableFuture<UploadResponse> uploadStreamAsync(
+            InputStream body,
+            long contentLength,
+            String filename,
+            String contentType,
+            String expectedChecksum,
+            String userId) {
+
+        // Already on the storageTaskExecutor thread, a failure thrown here completes the returned future
+        long startTime = System.currentTimeMillis();
+        String objectKey = null;
+        long size = Math.max(contentLength, 0);
+
+        try {
+            validateFilename(filename);
+            if (contentType == null || !isAllowedContentType(contentType)) {
+                throw new FileValidationException("File type not allowed: " + contentType);
+            }
+            if (contentLength == 0) {
+                throw new FileValidationException("File is empty");
+            }
+
+            long remainingQuota = maxUserQuota - metadataRepository.getTotalSizeByUser(userId);
+            long limit = Math.min(maxFileSize, remainingQuota);
+            Supplier<StorageException> onLimitExceeded = remainingQuota < maxFileSize
+                    ? () -> new QuotaExceededException(
+                            String.format("User quota exceeded. Remaining: %d", Math.max(remainingQuota, 0)))
+                    : () -> new FileValidationException(
+                            String.format("File size exceeds maximum limit of %d bytes", maxFileSize));
+
+            // A declared length over the limit is rejected before a single byte is read
+            if (contentLength > limit) {
+                throw onLimitExceeded.get();
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            SizeLimitInputStream limited = new SizeLimitInputStream(body, limit, onLimitExceeded);
+            objectKey = generateObjectKey(filename);
+
+            try (InputStream inputStream = new DigestInputStream(limited, digest)) {
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectKey)
+                        .stream(inputStream, contentLength > 0 ? contentLength : -1, streamPartSize)
+                        .contentType(contentType)
+                        .build());
+            }
+
+            size = limited.getBytesRead();
+            if (size == 0) {
+                throw new FileValidationException("File is empty");
+            }
+
+            String checksum = HexFormat.of().formatHex(digest.digest());
+            if (expectedChecksum != null && !expectedChecksum.equalsIgnoreCase(checksum)) {
+                throw new FileValidationException("Checksum mismatch, computed " + checksum);
+            }
+
+            FileMetadata metadata = metadataRepository.save(FileMetadata.builder()
+                    .objectKey(objectKey)
+                    .originalFilename(filename)
+                    .contentType(contentType)
+                    .size(size)
+                    .checksum(checksum)
+                    .uploadedBy(userId)
+                    .uploadedAt(Instant.now())
+                    .sharedWithUsers(new HashSet<>())
+                    .build());
+
+            triggerMediaProcessing(objectKey, contentType);
+
+            long duration = System.currentTimeMillis() - startTime;
+            metricsService.recordUpload(size, contentType, true, duration);
+
+            log.info("Streamed upload completed: {} ({} bytes) in {}ms", objectKey, size, duration);
+
+            return CompletableFuture.completedFuture(toUploadResponse(metadata));
+
+        } catch (Exception e) {
+            log.error("Streamed upload failed for user: {}", userId, e);
+            metricsService.recordUpload(size, contentType, false, System.currentTimeMillis() - startTime);
+
+            if (objectKey != null) {
+                cleanupFailedUpload(objectKey);
+            }
+
+            // MinIO wraps exceptions thrown by the stream, e.g. the size limit being hit mid-body
+            StorageException cause = findStorageException(e);
+            if (cause != null) {
+                throw cause;
+            }
+            throw new StorageException("Upload failed: " + e.getMessage(), e);
+        }
+    }
+
     @Async("storageTaskExecutor")
-    @Transactional
     public CompletableFuture<UploadResponse> uploadChunkAsync(
             ChunkUploadRequest request, MultipartFile chunk, String userId) {
 
+        try {
+            UploadSession session = getOrCreateUploadSession(request, userId);
+            validateChunk(session, request, chunk);
+            int chunkNumber = request.getChunkNumber();
+
+            // Each chunk is one part of the multipart upload, retries of a chunk overwrite its part
+            try (InputStream inputStream = chunk.getInputStream()) {
+                multipartClient.uploadPart(
+                        bucket,
+                        session.getObjectKey(),
+                        session.getMultipartUploadId(),
+                        chunkNumber,
+                        inputStream,
+                        chunk.getSize());
+            }
+
+            // The bit is set in the database, parallel chunks of the same upload cannot lose each other's bits
+            if (uploadSessionRepository.markChunkReceived(
+                            session.getUploadId(), chunkNumber - 1, nextSessionExpiry())
+                    == 0) {
+                throw new FileValidationException("Upload is no longer accepting chunks");
+            }
+
+            // Chunks may arrive out of order or in parallel, whoever sets the last bit completes the upload
+            UploadSession updated = findUploadSession(session.getUploadId());
+            if (missingChunks(updated).isEmpty() && claimCompletion(updated)) {
+                return CompletableFuture.completedFuture(completeMultipartUpload(updated));
+            }
+
+            return CompletableFuture.completedFuture(UploadResponse.builder()
+                    .uploadId(request.getUploadId())
+                    .chunkNumber(chunkNumber)
+                    .totalChunks(session.getTotalChunks())
+                    .complete(false)
+                    .success(true)
+                    .build());
+
+        } catch (StorageException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Chunk upload failed: uploadId={}, chunk={}", request.getUploadId(), request.getChunkNumber(), e);
+            throw new StorageException("Chunk upload failed", e);
+        }
+    }
+
+    /**
+     * Start a resumable upload up front, chunks are then sent with the returned uploadId
+     */
+    @Async("storageTaskExecutor")
+    public CompletableFuture<UploadSessionResponse> createUploadSessionAsync(
+            CreateUploadSessionRequest request, String userId) {
+
+        try {
+            return CompletableFuture.completedFuture(toSessionResponse(createUploadSession(
+                    UUID.randomUUID().toString(),
+                    userId,
+                    request.getFilename(),
+                    request.getContentType(),
+                    request.getTotalChunks())));
+
+        } catch (StorageException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to create upload session for user: {}", userId, e);
+            throw new StorageException("Failed to create upload session", e);
+        }
+    }
+
+    /**
+     * Which chunks the server holds, a resuming client re-sends only the missing ones
+     */
+    @Async("storageTaskExecutor")
+    public CompletableFuture<UploadSessionResponse> getUploadSessionAsync(String uploadId, String userId) {
+        return CompletableFuture.completedFuture(toSessionResponse(requireOwner(findUploadSession(uploadId), userId)));
+    }
+
+    @Async("storageTaskExecutor")
+    public CompletableFuture<Void> abortUploadSessionAsync(String uploadId, String userId) {
+        UploadSession session = requireOwner(findUploadSession(uploadId), userId);
+
+        if (uploadSessionRepository.transitionStatus(
+                        uploadId, UploadSession.STATUS_ACTIVE, UploadSession.STATUS_ABORTED)
+                == 0) {
+            throw new FileValidationException("Upload cannot be aborted: " + session.getStatus());
+        }
+
+        abortMultipartUpload(session.getObjectKey(), session.getMultipartUploadId());
+        log.info("Upload session aborted: {}", uploadId);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Issue a presigned POST policy so the client uploads straight to MinIO
+     * The policy pins an incoming object key and content type and caps the size at the declared one,
+     * the file only becomes visible once the client completes the ticket and it is copied to its final key.
+     */
+    @Async("storageTaskExecutor")
+    public CompletableFuture<UploadTicketResponse> createUploadTicketAsync(
+            CreateUploadTicketRequest request, String userId) {
+
+        try {
+            validateFilename(request.getFilename());
+            if (!isAllowedContentType(request.getContentType())) {
+                throw new FileValidationException("File type not allowed: " + request.getContentType());
+            }
+            if (request.getSize() > maxFileSize) {
+                throw new FileValidationException(
+                        String.format("File size exceeds maximum limit of %d bytes", maxFileSize));
+            }
+            checkUserQuota(userId, request.getSize());
+
+            String objectKey = DIRECT_UPLOAD_PREFIX + generateObjectKey(request.getFilename());
+            ZonedDateTime expiresAt = ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(directUploadExpiryMinutes);
+
+            PostPolicy policy = new PostPolicy(bucket, expiresAt);
+            policy.addEqualsCondition("key", objectKey);
+            policy.addEqualsCondition("Content-Type", request.getContentType());
+            policy.addContentLengthRangeCondition(1, request.getSize());
+
+            Map<String, String> formData = new LinkedHashMap<>(minioClient.getPresignedPostFormData(policy));
+            formData.put("key", objectKey);
+            formData.put("Content-Type", request.getContentType());
+
+            UploadTicket ticket = uploadTicketRepository.save(UploadTicket.builder()
+                    .ticketId(UUID.randomUUID().toString())
+                    .userId(userId)
+                    .objectKey(objectKey)
+                    .filename(request.getFilename())
+                    .contentType(request.getContentType())
+                    .maxSize(request.getSize())
+                    .expiresAt(expiresAt.toInstant())
+                    .build());
+
+            log.info("Upload ticket issued: {} for user: {}", ticket.getTicketId(), userId);
+
+            return CompletableFuture.completedFuture(UploadTicketResponse.builder()
+                    .ticketId(ticket.getTicketId())
+                    .objectKey(objectKey)
+                    .uploadUrl(directUploadEndpoint + "/" + bucket)
+                    .formData(formData)
+                    .expiresAt(ticket.getExpiresAt())
+                    .build());
+
+        } catch (StorageException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to issue upload ticket for user: {}", userId, e);
+            throw new StorageException("Failed to issue upload ticket", e);
+        }
+    }
+
+    /**
+     * Called by the client once its direct upload succeeded, records the file metadata
+     * Completing an already completed ticket returns the same result, so the callback can be retried.
+     */
+    @Async("storageTaskExecutor")
+    public CompletableFuture<UploadResponse> completeUploadTicketAsync(String ticketId, String userId) {
+        UploadTicket ticket = uploadTicketRepository
+                .findByTicketId(ticketId)
+                .orElseThrow(() -> new NotFoundException("Upload ticket not found"));
+        if (!ticket.getUserId().equals(userId)) {
+            throw new UnauthorizedException("Upload ticket belongs to another user");
+        }
+
+        if (UploadTicket.STATUS_COMPLETED.equals(ticket.getStatus())) {
+            // Tickets completed before files were copied kept the upload key
+            String fileKey = ticket.getFileKey() != null ? ticket.getFileKey() : ticket.getObjectKey();
+            FileMetadata metadata = metadataRepository
+                    .findByObjectKey(fileKey)
+                    .orElseThrow(() -> new NotFoundException("File not found"));
+            return CompletableFuture.completedFuture(toUploadResponse(metadata));
+        }
+        if (uploadTicketRepository.transitionStatus(
+                        ticketId, UploadTicket.STATUS_PENDING, UploadTicket.STATUS_COMPLETING)
+                == 0) {
+            throw new FileValidationException("Upload ticket cannot be completed: " + ticket.getStatus());
+        }
+
+        try {
+            return CompletableFuture.completedFuture(completeUploadTicket(ticket));
+
+        } catch (QuotaExceededException e) {
+            throw e;
+        } catch (StorageException e) {
+            reopenUploadTicket(ticketId);
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to complete upload ticket: {}", ticketId, e);
+            reopenUploadTicket(ticketId);
+            throw new StorageException("Failed to complete upload", e);
+        }
+    }
+
+    public CompletableFuture<String> getPresignedUrlAsync(String objectKey, String userId) {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                String chunkKey = generateChunkKey(request.getUploadId(), request.getChunkNumber());
-                uploadToMinio(chunk, chunkKey, "application/octet-stream");
-
-                if (request.getChunkNumber().equals(request.getTotalChunks())) {
-                    return mergeChunks(
-                            request.getUploadId(),
-                            request.getTotalChunks(),
-                            request.getFilename(),
-                            request.getContentType(),
-                            userId);
-                }
-
-                return UploadResponse.builder()
-                        .uploadId(request.getUploadId())
-                        .chunkNumber(request.getChunkNumber())
-                        .totalChunks(request.getTotalChunks())
-                        .complete(false)
-                        .success(true)
-                        .build();
+                return presignedUrlCache.get(new PresignKey(objectKey, userId));
 
             } catch (Exception e) {
-                log.error(
-                        "Chunk upload failed: uploadId={}, chunk={}",
-                        request.getUploadId(),
-                        request.getChunkNumber(),
-                        e);
-                throw new StorageException("Chunk upload failed", e);
+                log.error("Failed to generate presigned URL for: {}", objectKey, e);
+                throw new StorageException("Failed to generate presigned URL", e);
             }
         });
     }
 
-    public CompletableFuture<String> getPresignedUrlAsync(String objectKey, String userId) {
+    /**
+     * Presign many objects in one call
+     * Keys the user cannot access are left out of the result
+     */
+    public CompletableFuture<Map<String, String>> getPresignedUrlsAsync(List<String> objectKeys, String userId) {
+        if (objectKeys.size() > presignBatchMaxKeys) {
+            throw new FileValidationException(
+                    String.format("Cannot presign more than %d objects per request", presignBatchMaxKeys));
+        }
+
         return CompletableFuture.supplyAsync(() -> {
             try {
-                verifyFileAccess(objectKey, userId);
-
-                String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
-                        .method(Method.GET)
-                        .bucket(bucket)
-                        .object(objectKey)
-                        .expiry(1, TimeUnit.HOURS)
-                        .build());
+                Set<PresignKey> keys = objectKeys.stream()
+                        .map(objectKey -> new PresignKey(objectKey, userId))
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
 
-                log.debug("Generated presigned URL for: {}", objectKey);
-                return url;
+                Map<String, String> urls = new LinkedHashMap<>();
+                presignedUrlCache.getAll(keys).forEach((key, url) -> urls.put(key.objectKey(), url));
+                return urls;
 
             } catch (Exception e) {
-                log.error("Failed to generate presigned URL for: {}", objectKey, e);
-                throw new StorageException("Failed to generate presigned URL", e);
+                log.error("Failed to generate presigned URLs for user: {}", userId, e);
+                throw new StorageException("Failed to generate presigned URLs", e);
             }
         });
     }
@@ -222,6 +599,7 @@ public class StorageService {
                 }
 
                 metadataRepository.delete(metadata);
+                evictPresignedUrls(Set.of(objectKey));
 
                 log.info("Deleted file: {}", objectKey);
                 metricsService.recordDeletion(objectKey, true);
@@ -265,6 +643,9 @@ public class StorageService {
                         .collect(Collectors.toList());
 
                 metadataRepository.deleteAll(successfulDeletes);
+                evictPresignedUrls(successfulDeletes.stream()
+                        .map(FileMetadata::getObjectKey)
+                        .collect(Collectors.toSet()));
 
                 for (FileMetadata file : ownedFiles) {
                     results.put(file.getObjectKey(), !failedDeletes.contains(file.getObjectKey()));
@@ -315,6 +696,42 @@ public class StorageService {
         });
     }
 
+    private String signPresignedUrl(String objectKey) throws Exception {
+        String url = minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET)
+                .bucket(bucket)
+                .object(objectKey)
+                .expiry(presignExpiryMinutes, TimeUnit.MINUTES)
+                .build());
+
+        log.debug("Generated presigned URL for: {}", objectKey);
+        return url;
+    }
+
+    /**
+     * Bulk loader: one access query per user, then local signing
+     */
+    private Map<PresignKey, String> loadPresignedUrls(Set<? extends PresignKey> keys) throws Exception {
+        Map<String, List<String>> objectKeysByUser = keys.stream()
+                .collect(Collectors.groupingBy(
+                        PresignKey::userId, Collectors.mapping(PresignKey::objectKey, Collectors.toList())));
+
+        Map<PresignKey, String> urls = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : objectKeysByUser.entrySet()) {
+            String userId = entry.getKey();
+            for (String objectKey : metadataRepository.findAccessibleObjectKeys(entry.getValue(), userId)) {
+                urls.put(new PresignKey(objectKey, userId), signPresignedUrl(objectKey));
+            }
+        }
+        return urls;
+    }
+
+    private void evictPresignedUrls(Set<String> objectKeys) {
+        if (!objectKeys.isEmpty()) {
+            presignedUrlCache.asMap().keySet().removeIf(key -> objectKeys.contains(key.objectKey()));
+        }
+    }
+
     private void uploadToMinio(MultipartFile file, String objectKey, String contentType) throws Exception {
         try (InputStream inputStream = file.getInputStream()) {
             minioClient.putObject(
@@ -324,52 +741,315 @@ public class StorageService {
         }
     }
 
-    private UploadResponse mergeChunks(
-            String uploadId, int totalChunks, String filename, String contentType, String userId) throws Exception {
+    /**
+     * Session of the upload, created by the first chunk to arrive when the client did not create one up front
+     */
+    private UploadSession getOrCreateUploadSession(ChunkUploadRequest request, String userId) throws Exception {
+        Optional<UploadSession> existing = uploadSessionRepository.findByUploadId(request.getUploadId());
+        if (existing.isPresent()) {
+            return requireOwner(existing.get(), userId);
+        }
 
-        String finalObjectKey = generateObjectKey(filename);
-        File tempFile = File.createTempFile("merge-", ".tmp");
+        return createUploadSession(
+                request.getUploadId(),
+                userId,
+                request.getFilename(),
+                request.getContentType(),
+                request.getTotalChunks());
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            for (int i = 1; i <= totalChunks; i++) {
-                String chunkKey = generateChunkKey(uploadId, i);
-                try (InputStream is = minioClient.getObject(
-                        GetObjectArgs.builder().bucket(bucket).object(chunkKey).build())) {
-                    is.transferTo(fos);
-                }
-            }
+    /**
+     * Start the S3 multipart upload and record the session with an empty chunk bitmap
+     */
+    private UploadSession createUploadSession(
+            String uploadId, String userId, String filename, String requestedContentType, int totalChunks)
+            throws Exception {
 
-            try (FileInputStream fis = new FileInputStream(tempFile)) {
-                minioClient.putObject(
-                        PutObjectArgs.builder().bucket(bucket).object(finalObjectKey).stream(fis, tempFile.length(), -1)
-                                .contentType(contentType)
-                                .build());
-            }
+        String contentType = requestedContentType != null ? requestedContentType : "application/octet-stream";
+        if (!isAllowedContentType(contentType)) {
+            throw new FileValidationException("File type not allowed: " + contentType);
+        }
+        if (totalChunks > MAX_PARTS) {
+            throw new FileValidationException(String.format("Cannot upload more than %d chunks", MAX_PARTS));
+        }
 
-            FileMetadata metadata = FileMetadata.builder()
-                    .objectKey(finalObjectKey)
-                    .originalFilename(filename)
-                    .contentType(contentType)
-                    .size(tempFile.length())
-                    .uploadedBy(userId)
-                    .uploadedAt(Instant.now())
-                    .build();
-            metadataRepository.save(metadata);
+        String objectKey = generateObjectKey(filename);
+        String multipartUploadId = multipartClient.createMultipartUpload(bucket, objectKey, contentType);
 
-            deleteChunks(uploadId, totalChunks);
-            triggerMediaProcessing(finalObjectKey, contentType);
+        // Recorded before anything else can fail, the cleanup aborts whatever is never completed or aborted
+        multipartUploadRecordRepository.save(MultipartUploadRecord.builder()
+                .multipartUploadId(multipartUploadId)
+                .objectKey(objectKey)
+                .build());
 
-            return UploadResponse.builder()
-                    .objectKey(finalObjectKey)
+        try {
+            return uploadSessionRepository.saveAndFlush(UploadSession.builder()
+                    .uploadId(uploadId)
+                    .userId(userId)
+                    .objectKey(objectKey)
+                    .multipartUploadId(multipartUploadId)
                     .filename(filename)
-                    .size(tempFile.length())
                     .contentType(contentType)
-                    .complete(true)
-                    .success(true)
-                    .build();
+                    .totalChunks(totalChunks)
+                    .expiresAt(nextSessionExpiry())
+                    .build());
+
+        } catch (DataIntegrityViolationException e) {
+            // Another chunk of the same upload created the session first
+            abortMultipartUpload(objectKey, multipartUploadId);
+            return requireOwner(findUploadSession(uploadId), userId);
+        }
+    }
+
+    private UploadSession findUploadSession(String uploadId) {
+        return uploadSessionRepository
+                .findByUploadId(uploadId)
+                .orElseThrow(() -> new NotFoundException("Upload session not found"));
+    }
+
+    private Instant nextSessionExpiry() {
+        return Instant.now().plus(Duration.ofHours(uploadSessionExpiryHours));
+    }
+
+    private List<Integer> missingChunks(UploadSession session) {
+        BitSet received = BitSet.valueOf(session.getReceivedChunks());
+        List<Integer> missing = new ArrayList<>();
+        for (int i = received.nextClearBit(0); i < session.getTotalChunks(); i = received.nextClearBit(i + 1)) {
+            missing.add(i + 1);
+        }
+        return missing;
+    }
+
+    private UploadSessionResponse toSessionResponse(UploadSession session) {
+        List<Integer> missing = missingChunks(session);
+
+        return UploadSessionResponse.builder()
+                .uploadId(session.getUploadId())
+                .status(session.getStatus())
+                .filename(session.getFilename())
+                .contentType(session.getContentType())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(session.getTotalChunks() - missing.size())
+                .missingChunks(missing)
+                .objectKey(UploadSession.STATUS_COMPLETED.equals(session.getStatus()) ? session.getObjectKey() : null)
+                .createdAt(session.getCreatedAt())
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+
+    private UploadSession requireOwner(UploadSession session, String userId) {
+        if (!session.getUserId().equals(userId)) {
+            throw new UnauthorizedException("Upload belongs to another user");
+        }
+        return session;
+    }
+
+    private void validateChunk(UploadSession session, ChunkUploadRequest request, MultipartFile chunk) {
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())
+                || session.getExpiresAt().isBefore(Instant.now())) {
+            throw new FileValidationException("Upload is no longer accepting chunks: " + session.getStatus());
+        }
+        if (!session.getTotalChunks().equals(request.getTotalChunks())
+                || request.getChunkNumber() > session.getTotalChunks()) {
+            throw new FileValidationException("Chunk does not match the upload");
+        }
+        if (chunk == null || chunk.isEmpty()) {
+            throw new FileValidationException("Chunk is empty");
+        }
+
+        // S3 rejects parts below 5 MiB at completion, only the last one may be smaller
+        if (chunk.getSize() < MIN_PART_SIZE && request.getChunkNumber() < session.getTotalChunks()) {
+            throw new FileValidationException(
+                    String.format("Every chunk but the last must be at least %d bytes", MIN_PART_SIZE));
+        }
+    }
+
+    /**
+     * Only one of the requests that saw every chunk received gets to complete the upload
+     */
+    private boolean claimCompletion(UploadSession session) {
+        return uploadSessionRepository.transitionStatus(
+                        session.getUploadId(), UploadSession.STATUS_ACTIVE, UploadSession.STATUS_COMPLETING)
+                == 1;
+    }
+
+    /**
+     * Stitch the parts together on the server, nothing is downloaded or re-uploaded
+     */
+    private UploadResponse completeMultipartUpload(UploadSession session) throws Exception {
+        // The bitmap says every chunk arrived, the ETags needed for completion come from the server
+        List<Part> parts;
+        try {
+            parts = multipartClient.listParts(bucket, session.getObjectKey(), session.getMultipartUploadId());
+        } catch (Exception e) {
+            uploadSessionRepository.transitionStatus(
+                    session.getUploadId(), UploadSession.STATUS_COMPLETING, UploadSession.STATUS_ACTIVE);
+            throw e;
+        }
+        long size = parts.stream().mapToLong(Part::partSize).sum();
+
+        try {
+            checkUserQuota(session.getUserId(), size);
+        } catch (QuotaExceededException e) {
+            abortMultipartUpload(session.getObjectKey(), session.getMultipartUploadId());
+            uploadSessionRepository.transitionStatus(
+                    session.getUploadId(), UploadSession.STATUS_COMPLETING, UploadSession.STATUS_ABORTED);
+            throw e;
+        }
+
+        Part[] orderedParts = parts.stream()
+                .sorted(Comparator.comparingInt(Part::partNumber))
+                .map(part -> new Part(part.partNumber(), part.etag()))
+                .toArray(Part[]::new);
+
+        try {
+            multipartClient.completeMultipartUpload(
+                    bucket, session.getObjectKey(), session.getMultipartUploadId(), orderedParts);
+        } catch (Exception e) {
+            // Let a retried chunk attempt the completion again
+            uploadSessionRepository.transitionStatus(
+                    session.getUploadId(), UploadSession.STATUS_COMPLETING, UploadSession.STATUS_ACTIVE);
+            throw e;
+        }
+        multipartUploadRecordRepository.deleteByMultipartUploadId(session.getMultipartUploadId());
+
+        FileMetadata metadata = FileMetadata.builder()
+                .objectKey(session.getObjectKey())
+                .originalFilename(session.getFilename())
+                .contentType(session.getContentType())
+                .size(size)
+                .uploadedBy(session.getUserId())
+                .uploadedAt(Instant.now())
+                .build();
+        metadataRepository.save(metadata);
+
+        uploadSessionRepository.transitionStatus(
+                session.getUploadId(), UploadSession.STATUS_COMPLETING, UploadSession.STATUS_COMPLETED);
+        triggerMediaProcessing(session.getObjectKey(), session.getContentType());
+
+        log.info(
+                "Chunked upload completed: {} ({} parts, {} bytes)",
+                session.getObjectKey(),
+                orderedParts.length,
+                size);
+
+        return UploadResponse.builder()
+                .objectKey(session.getObjectKey())
+                .filename(session.getFilename())
+                .size(size)
+                .contentType(session.getContentType())
+                .uploadedAt(metadata.getUploadedAt())
+                .uploadId(session.getUploadId())
+                .totalChunks(session.getTotalChunks())
+                .complete(true)
+                .success(true)
+                .build();
+    }
+
+    private UploadResponse completeUploadTicket(UploadTicket ticket) throws Exception {
+        StatObjectResponse object;
+        try {
+            object = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(ticket.getObjectKey())
+                    .build());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                throw new FileValidationException("File has not been uploaded yet");
+            }
+            throw e;
+        }
+
+        try {
+            checkUserQuota(ticket.getUserId(), object.size());
+        } catch (QuotaExceededException e) {
+            cleanupFailedUpload(ticket.getObjectKey());
+            uploadTicketRepository.transitionStatus(
+                    ticket.getTicketId(), UploadTicket.STATUS_COMPLETING, UploadTicket.STATUS_REJECTED);
+            throw e;
+        }
+
+        // The policy accepts uploads until it expires, so the file is the server-side copy of exactly the
+        // object checked above, at a key the client cannot overwrite. A replaced object fails the ETag match.
+        String fileKey = generateObjectKey(ticket.getFilename());
+        minioClient.copyObject(CopyObjectArgs.builder()
+                .bucket(bucket)
+                .object(fileKey)
+                .source(CopySource.builder()
+                        .bucket(bucket)
+                        .object(ticket.getObjectKey())
+                        .matchETag(object.etag())
+                        .build())
+                .build());
+
+        FileMetadata metadata;
+        try {
+            metadata = metadataRepository.save(FileMetadata.builder()
+                    .objectKey(fileKey)
+                    .originalFilename(ticket.getFilename())
+                    .contentType(ticket.getContentType())
+                    .size(object.size())
+                    .uploadedBy(ticket.getUserId())
+                    .uploadedAt(Instant.now())
+                    .sharedWithUsers(new HashSet<>())
+                    .build());
+        } catch (Exception e) {
+            cleanupFailedUpload(fileKey);
+            throw e;
+        }
+
+        uploadTicketRepository.markCompleted(ticket.getTicketId(), fileKey);
+        // The incoming object is not served, whatever is left under its key is removed when the ticket is purged
+        cleanupFailedUpload(ticket.getObjectKey());
+        triggerMediaProcessing(fileKey, ticket.getContentType());
+
+        metricsService.recordUpload(
+                object.size(),
+                ticket.getContentType(),
+                true,
+                Duration.between(ticket.getCreatedAt(), metadata.getUploadedAt()).toMillis());
+        log.info("Direct upload completed: {} ({} bytes)", fileKey, object.size());
+
+        return toUploadResponse(metadata);
+    }
+
+    /**
+     * Leave the ticket open so the client can retry the callback
+     */
+    private void reopenUploadTicket(String ticketId) {
+        uploadTicketRepository.transitionStatus(ticketId, UploadTicket.STATUS_COMPLETING, UploadTicket.STATUS_PENDING);
+    }
 
-        } finally {
-            tempFile.delete();
+    private UploadResponse toUploadResponse(FileMetadata metadata) {
+        return UploadResponse.builder()
+                .objectKey(metadata.getObjectKey())
+                .filename(metadata.getOriginalFilename())
+                .size(metadata.getSize())
+                .contentType(metadata.getContentType())
+                .checksum(metadata.getChecksum())
+                .uploadedAt(metadata.getUploadedAt())
+                .success(true)
+                .build();
+    }
+
+    private static StorageException findStorageException(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StorageException storageException) {
+                return storageException;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A failed abort keeps the upload's record, the cleanup retries it
+     */
+    private void abortMultipartUpload(String objectKey, String multipartUploadId) {
+        try {
+            multipartClient.abortMultipartUpload(bucket, objectKey, multipartUploadId);
+            multipartUploadRecordRepository.deleteByMultipartUploadId(multipartUploadId);
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload for: {}", objectKey, e);
         }
     }
 
@@ -388,7 +1068,10 @@ public class StorageService {
             throw new FileValidationException("File type not allowed: " + contentType);
         }
 
-        String filename = file.getOriginalFilename();
+        validateFilename(file.getOriginalFilename());
+    }
+
+    private void validateFilename(String filename) {
         if (filename == null || filename.contains("..") || filename.contains("/")) {
             throw new FileValidationException("Invalid filename");
         }
@@ -447,10 +1130,6 @@ public class StorageService {
         return filename.replaceAll("[^a-zA-Z0-9.-]", "_");
     }
 
-    private String generateChunkKey(String uploadId, int chunkNumber) {
-        return String.format("chunks/%s/chunk-%04d", uploadId, chunkNumber);
-    }
-
     private FileMetadata createFileMetadata(MultipartFile file, String objectKey, String contentType, String userId) {
 
         return FileMetadata.builder()
@@ -492,18 +1171,4 @@ public class StorageService {
             log.error("Failed to cleanup after failed upload: {}", objectKey, e);
         }
     }
-
-    private void deleteChunks(String uploadId, int totalChunks) {
-        try {
-            List<DeleteObject> chunks = new ArrayList<>();
-            for (int i = 1; i <= totalChunks; i++) {
-                chunks.add(new DeleteObject(generateChunkKey(uploadId, i)));
-            }
-
-            minioClient.removeObjects(
-                    RemoveObjectsArgs.builder().bucket(bucket).objects(chunks).build());
-        } catch (Exception e) {
-            log.error("Failed to delete chunks for uploadId: {}", uploadId, e);
-        }
-    }
 }